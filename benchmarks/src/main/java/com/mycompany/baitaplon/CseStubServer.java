@@ -0,0 +1,324 @@
+package com.mycompany.baitaplon;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Server giả thay cho {@code https://www.googleapis.com/customsearch/v1}: phát lại các response CSE đã ghi
+ * trong {@code /fixtures}, có độ trễ và tỉ lệ lỗi cấu hình được, để chạy thử tải mà không tốn quota.
+ *
+ * <pre>
+ * java -cp benchmarks.jar com.mycompany.baitaplon.CseStubServer [--port 8787] [--latency-ms 120]
+ *      [--jitter-ms 40] [--slow-rate 0.01] [--slow-ms 1500] [--error-rate 429=0.02,403=0.001]
+ * java -DGOOGLE_CSE_ENDPOINT=http://127.0.0.1:8787/customsearch/v1 -DGOOGLE_CSE_KEY=x -DGOOGLE_CSE_CX=y ...
+ * GET /stats
+ * </pre>
+ *
+ * Phân trang giống API thật: {@code start} 1..91, {@code start + num > 101} trả 400; trang thứ k dùng fixture
+ * thứ k (quay vòng, link được đánh số thêm để không trùng). Thiếu key trả 403, thiếu cx trả 400.
+ * Response được nén gzip khi client gửi {@code Accept-Encoding: gzip}.
+ */
+public final class CseStubServer {
+
+    static {
+        // Như SearchServer: tắt Nagle, nếu không mỗi response cộng thêm ~40ms chờ delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /** Độ trễ và lỗi giả lập; dùng chung cho {@link LoadDriver} khi nó tự bật server. */
+    static final class Options {
+        int latencyMs = 120;
+        int jitterMs = 40;
+        double slowRate = 0;
+        int slowMs = 1500;
+        final Map<Integer, Double> errorRates = new TreeMap<>();
+
+        /** @return false nếu {@code flag} không phải tham số của server giả */
+        boolean accept(String flag, String value) {
+            switch (flag) {
+                case "--latency-ms" -> latencyMs = Integer.parseInt(value);
+                case "--jitter-ms" -> jitterMs = Integer.parseInt(value);
+                case "--slow-rate" -> slowRate = Double.parseDouble(value);
+                case "--slow-ms" -> slowMs = Integer.parseInt(value);
+                case "--error-rate" -> {
+                    for (String part : value.split(",")) {
+                        String[] kv = part.split("=", 2);
+                        if (kv.length != 2) throw new IllegalArgumentException("--error-rate dạng 429=0.02,403=0.01");
+                        errorRates.put(Integer.parseInt(kv[0].trim()), Double.parseDouble(kv[1].trim()));
+                    }
+                }
+                default -> { return false; }
+            }
+            return true;
+        }
+
+        @Override public String toString() {
+            return String.format(Locale.ROOT, "latency %d±%dms, slow %.3f×%dms, errors %s",
+                    latencyMs, jitterMs, slowRate, slowMs, errorRates);
+        }
+    }
+
+    private static final int MAX_PAGES = 10;
+
+    private final Options options;
+    private final HttpServer server;
+    private final ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // Body dựng sẵn cho từng trang (num=10) và từng mã lỗi, bản thường và bản gzip
+    private final ObjectNode[] pages = new ObjectNode[MAX_PAGES];
+    private final byte[][] pageBodies = new byte[MAX_PAGES][];
+    private final byte[][] pageBodiesGzip = new byte[MAX_PAGES][];
+    private final Map<Integer, byte[]> errorBodies = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final Map<Integer, LongAdder> byStatus = new ConcurrentHashMap<>();
+
+    CseStubServer(InetSocketAddress addr, Options options) throws IOException {
+        this.options = options;
+        for (int k = 0; k < MAX_PAGES; k++) {
+            pages[k] = page(k);
+            pageBodies[k] = mapper.writeValueAsBytes(pages[k]);
+            pageBodiesGzip[k] = gzip(pageBodies[k]);
+        }
+        this.server = HttpServer.create(addr, 1024);
+        server.createContext("/customsearch/v1", this::handleSearch);
+        server.createContext("/stats", this::handleStats);
+        server.setExecutor(exec);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = 8787;
+        String bind = "127.0.0.1";
+        Options opt = new Options();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--bind" -> bind = args[i + 1];
+                default -> {
+                    if (!opt.accept(args[i], args[i + 1])) {
+                        throw new IllegalArgumentException("Tham số không hợp lệ: " + args[i]);
+                    }
+                }
+            }
+        }
+
+        CseStubServer s = new CseStubServer(new InetSocketAddress(bind, port), opt);
+        Runtime.getRuntime().addShutdownHook(new Thread(s::stop));
+        s.start();
+        System.err.println("CSE giả tại " + s.endpoint() + " (" + opt + ")");
+    }
+
+    void start() { server.start(); }
+
+    void stop() {
+        server.stop(0);
+        exec.shutdownNow();
+    }
+
+    int port() { return server.getAddress().getPort(); }
+
+    String endpoint() {
+        return "http://" + server.getAddress().getHostString() + ":" + port() + "/customsearch/v1";
+    }
+
+    long requests() { return requests.sum(); }
+
+    /** Số response theo mã HTTP, sắp theo mã. */
+    Map<Integer, Long> statusCounts() {
+        Map<Integer, Long> out = new TreeMap<>();
+        byStatus.forEach((code, n) -> out.put(code, n.sum()));
+        return out;
+    }
+
+    // ====== Dữ liệu ======
+
+    /** Trang thứ k: fixture k (quay vòng), sửa startIndex/nextPage; từ vòng thứ hai link được đánh số thêm. */
+    private ObjectNode page(int k) {
+        ObjectNode root = (ObjectNode) fixture(Fixtures.PAGES[k % Fixtures.PAGES.length]);
+        int start = 1 + k * CseClient.PAGE_SIZE;
+        ObjectNode queries = (ObjectNode) root.path("queries");
+        ((ObjectNode) queries.path("request").path(0)).put("startIndex", start);
+        if (k + 1 < MAX_PAGES) {
+            ((ObjectNode) queries.path("nextPage").path(0)).put("startIndex", start + CseClient.PAGE_SIZE);
+        } else {
+            queries.remove("nextPage");
+        }
+        if (k >= Fixtures.PAGES.length) {
+            for (JsonNode item : root.path("items")) {
+                String link = item.path("link").asText();
+                ((ObjectNode) item).put("link", link + (link.indexOf('?') < 0 ? "?" : "&") + "p=" + (k + 1));
+            }
+        }
+        return root;
+    }
+
+    private JsonNode fixture(String name) {
+        try {
+            return mapper.readTree(Fixtures.bytes(name));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] errorBody(int code) {
+        return errorBodies.computeIfAbsent(code, c -> {
+            try {
+                return Fixtures.bytes("cse-error-" + c + ".json");
+            } catch (IllegalStateException noFixture) {
+                ObjectNode root = mapper.createObjectNode();
+                ObjectNode err = root.putObject("error");
+                err.put("code", c);
+                err.put("message", "Stub error " + c);
+                err.put("status", "UNAVAILABLE");
+                try {
+                    return mapper.writeValueAsBytes(root);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(bos)) {
+            gz.write(body);
+        }
+        return bos.toByteArray();
+    }
+
+    // ====== Handlers ======
+
+    private void handleSearch(HttpExchange ex) throws IOException {
+        try (ex) {
+            requests.increment();
+            Map<String, String> q = params(ex.getRequestURI().getRawQuery());
+            int num = parseInt(q.get("num"), 10);
+            int start = parseInt(q.get("start"), 1);
+
+            int status;
+            if (q.getOrDefault("key", "").isBlank()) status = 403;
+            else if (q.getOrDefault("cx", "").isBlank() || q.getOrDefault("q", "").isBlank()) status = 400;
+            else if (num < 1 || num > 10 || start < 1 || start + num > 101) status = 400;
+            else status = injectedError();
+
+            sleep(latencyMs());
+
+            boolean gzip = ex.getRequestHeaders().getOrDefault("Accept-Encoding", List.of()).stream()
+                    .anyMatch(v -> v.toLowerCase(Locale.ROOT).contains("gzip"));
+            byte[] body;
+            if (status != 200) {
+                body = errorBody(status);
+                gzip = false;
+            } else {
+                int k = Math.min((start - 1) / CseClient.PAGE_SIZE, MAX_PAGES - 1);
+                if (num == CseClient.PAGE_SIZE && (start - 1) % CseClient.PAGE_SIZE == 0) {
+                    body = gzip ? pageBodiesGzip[k] : pageBodies[k];
+                } else {
+                    body = partialPage(k, num);
+                    gzip = false;
+                }
+            }
+
+            ex.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            if (gzip) ex.getResponseHeaders().set("Content-Encoding", "gzip");
+            ex.sendResponseHeaders(status, body.length);
+            try (OutputStream os = ex.getResponseBody()) {
+                os.write(body);
+            }
+            byStatus.computeIfAbsent(status, c -> new LongAdder()).increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] partialPage(int k, int num) throws IOException {
+        ObjectNode root = pages[k].deepCopy();
+        ArrayNode items = (ArrayNode) root.path("items");
+        while (items.size() > num) items.remove(items.size() - 1);
+        return mapper.writeValueAsBytes(root);
+    }
+
+    private void handleStats(HttpExchange ex) throws IOException {
+        try (ex) {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("requests", requests());
+            stats.put("byStatus", statusCounts());
+            stats.put("options", options.toString());
+            byte[] body = mapper.writeValueAsBytes(stats);
+            ex.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            ex.sendResponseHeaders(200, body.length);
+            try (OutputStream os = ex.getResponseBody()) {
+                os.write(body);
+            }
+        }
+    }
+
+    private int injectedError() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        for (Map.Entry<Integer, Double> e : options.errorRates.entrySet()) {
+            r -= e.getValue();
+            if (r < 0) return e.getKey();
+        }
+        return 200;
+    }
+
+    private long latencyMs() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        long ms = options.latencyMs;
+        if (options.jitterMs > 0) ms += rnd.nextLong(-options.jitterMs, options.jitterMs + 1L);
+        if (options.slowRate > 0 && rnd.nextDouble() < options.slowRate) ms += options.slowMs;
+        return Math.max(ms, 0);
+    }
+
+    private static void sleep(long ms) throws InterruptedException {
+        if (ms > 0) TimeUnit.MILLISECONDS.sleep(ms);
+    }
+
+    private static int parseInt(String s, int def) {
+        try {
+            return s == null ? def : Integer.parseInt(s.trim());
+        } catch (NumberFormatException e) {
+            return -1; // tham số sai định dạng => 400 như API thật
+        }
+    }
+
+    private static Map<String, String> params(String rawQuery) {
+        Map<String, String> out = new HashMap<>();
+        if (rawQuery == null) return out;
+        for (String part : rawQuery.split("&")) {
+            int eq = part.indexOf('=');
+            String k = eq < 0 ? part : part.substring(0, eq);
+            String v = eq < 0 ? "" : part.substring(eq + 1);
+            out.put(URLDecoder.decode(k, StandardCharsets.UTF_8), URLDecoder.decode(v, StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+}
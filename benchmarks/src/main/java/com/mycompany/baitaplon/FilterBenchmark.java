@@ -0,0 +1,100 @@
+package com.mycompany.baitaplon;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.swing.DefaultListModel;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đổi bộ lọc domain và dựng danh sách domain với {@code n} kết quả: {@link ResultListModel}
+ * (chỉ mục theo domain, một event mỗi lần đổi) so với cách cũ quét lại và {@code addElement} từng dòng.
+ * Chạy với {@code -prof gc} để xem số byte cấp phát mỗi lần.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FilterBenchmark {
+    private static final String ALL = "Tất cả";
+
+    @Param({"10", "1000", "100000"})
+    public int n;
+
+    private List<ResultItem> results;
+    private String[] filters;
+    private int next;
+
+    private ResultListModel model;
+    private DefaultListModel<ResultItem> legacyModel;
+
+    @Setup
+    public void setup() {
+        results = Fixtures.results(n);
+        model = new ResultListModel();
+        model.setResults(results);
+        legacyModel = new DefaultListModel<>();
+
+        // Xen kẽ "Tất cả" với từng domain, giống người dùng bấm qua lại trong danh sách
+        List<String> domains = model.domains();
+        filters = new String[domains.size() * 2];
+        for (int i = 0; i < domains.size(); i++) {
+            filters[2 * i] = ALL;
+            filters[2 * i + 1] = domains.get(i);
+        }
+    }
+
+    private String nextFilter() {
+        String f = filters[next];
+        next = (next + 1) % filters.length;
+        return f;
+    }
+
+    @Benchmark
+    public int setFilter() {
+        String f = nextFilter();
+        model.setFilter(ALL.equals(f) ? null : f);
+        return model.getSize();
+    }
+
+    @Benchmark
+    public int setFilterLegacy() {
+        String f = nextFilter();
+        legacyModel.clear();
+        for (ResultItem it : results) {
+            if (ALL.equals(f) || it.displayLink.equalsIgnoreCase(f)) legacyModel.addElement(it);
+        }
+        return legacyModel.size();
+    }
+
+    /** Nạp lại toàn bộ kết quả: dựng chỉ mục domain trong model. */
+    @Benchmark
+    public void buildDomains(Blackhole bh) {
+        ResultListModel m = new ResultListModel();
+        m.setResults(results);
+        bh.consume(m.domains().size());
+    }
+
+    @Benchmark
+    public void buildDomainsLegacy(Blackhole bh) {
+        LinkedHashSet<String> domains = new LinkedHashSet<>();
+        for (ResultItem it : results) domains.add(it.displayLink);
+        DefaultListModel<String> domainModel = new DefaultListModel<>();
+        domainModel.addElement(ALL);
+        for (String d : domains) domainModel.addElement(d);
+        bh.consume(domainModel.size());
+    }
+
+    /** Kết quả đến theo trang 10 dòng như khi tìm sâu. */
+    @Benchmark
+    public void appendPages(Blackhole bh) {
+        ResultListModel m = new ResultListModel();
+        for (int i = 0; i < results.size(); i += CseClient.PAGE_SIZE) {
+            bh.consume(m.append(results.subList(i, Math.min(results.size(), i + CseClient.PAGE_SIZE))));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.mycompany.baitaplon;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Dữ liệu mẫu dùng chung cho các benchmark: response CSE thật (đã ẩn key/cx) trong {@code /fixtures}. */
+final class Fixtures {
+    static final String[] PAGES = {"cse-page1.json", "cse-page2.json", "cse-page3.json"};
+
+    private Fixtures() {}
+
+    static byte[] bytes(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) throw new IllegalStateException("Thiếu fixture: " + name);
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@code n} kết quả dựng từ các trang mẫu; link được đánh số để không trùng nhau và
+     * domain được trộn thêm hậu tố để số domain tăng theo {@code n} (khoảng n/20).
+     */
+    static List<ResultItem> results(int n) {
+        JsonFactory factory = new JsonFactory();
+        List<ResultItem> base = new ArrayList<>();
+        try {
+            for (String page : PAGES) {
+                base.addAll(CseResponseParser.parse(factory, new ByteArrayInputStream(bytes(page))));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int domainsExtra = Math.max(1, n / 200);
+        List<ResultItem> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            ResultItem b = base.get(i % base.size());
+            String domain = (i / base.size()) % domainsExtra == 0
+                    ? b.displayLink
+                    : "s" + (i % domainsExtra) + "." + b.displayLink;
+            out.add(new ResultItem(b.title, b.link + "#" + i, b.snippet, domain));
+        }
+        return out;
+    }
+}
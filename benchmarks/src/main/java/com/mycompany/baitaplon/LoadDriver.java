@@ -0,0 +1,255 @@
+package com.mycompany.baitaplon;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chạy thử tải end-to-end qua {@link CseClient} (HTTP, parse, cache, quota) và in p50/p99/p99.9 cùng
+ * thông lượng cho ba kiểu dùng: một trang, nhiều trang song song, và batch nhiều truy vấn.
+ *
+ * <pre>
+ * java -cp benchmarks.jar com.mycompany.baitaplon.LoadDriver [--workload single,multi,batch]
+ *      [--duration 20] [--warmup 5] [--concurrency 32] [--rate 0] [--pages 5] [--batch-size 20]
+ *      [--endpoint URL | --stubs 1 --latency-ms 120 --jitter-ms 40 --slow-rate 0.01 --error-rate 429=0.01 ...]
+ * </pre>
+ *
+ * Không có {@code --endpoint} thì tự bật {@link CseStubServer} trong cùng JVM; {@code --stubs N} bật N server giả
+ * giống nhau, mỗi server một key cùng CX, để thử {@link HedgedProvider} (so p99 với {@code --stubs 1}). Mỗi thao tác dùng một truy vấn
+ * mới nên không trúng cache; quota và key nằm trong {@link MemoryPreferences}, không đụng cấu hình thật.
+ * Mặc định là vòng kín ({@code --concurrency} luồng gửi liên tục); {@code --rate N} chuyển sang vòng mở
+ * N thao tác/giây, độ trễ tính từ thời điểm lẽ ra phải gửi để không che mất phần xếp hàng.
+ */
+public final class LoadDriver {
+
+    enum Workload { SINGLE, MULTI, BATCH }
+
+    private interface Op {
+        void run(long id) throws Exception;
+    }
+
+    /** Mẫu độ trễ (nano giây) của một workload. */
+    private static final class Samples {
+        private long[] a = new long[1 << 12];
+        private int size;
+        private final Map<String, Long> errors = new TreeMap<>();
+
+        synchronized void add(long nanos) {
+            if (size == a.length) a = Arrays.copyOf(a, size * 2);
+            a[size++] = nanos;
+        }
+
+        synchronized void error(Exception e) {
+            String msg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            errors.merge(msg.length() > 60 ? msg.substring(0, 60) : msg, 1L, Long::sum);
+        }
+
+        /** Percentile theo nearest-rank trên mảng đã sắp. */
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int idx = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.min(Math.max(idx, 0), sorted.length - 1)];
+        }
+
+        synchronized String report(String name, double seconds, long unitsPerOp) {
+            long[] s = Arrays.copyOf(a, size);
+            Arrays.sort(s);
+            long errs = errors.values().stream().mapToLong(Long::longValue).sum();
+            String line = String.format(Locale.ROOT,
+                    "%-7s ops=%-7d thr=%8.1f/s (%8.1f req/s)  p50=%7.1fms p90=%7.1fms p99=%7.1fms p99.9=%7.1fms max=%7.1fms  errors=%d",
+                    name, s.length, s.length / seconds, s.length * unitsPerOp / seconds,
+                    ms(percentile(s, 0.50)), ms(percentile(s, 0.90)), ms(percentile(s, 0.99)),
+                    ms(percentile(s, 0.999)), ms(s.length == 0 ? 0 : s[s.length - 1]), errs);
+            StringBuilder sb = new StringBuilder(line);
+            errors.forEach((m, n) -> sb.append("\n          ").append(n).append(" × ").append(m));
+            return sb.toString();
+        }
+
+        private static double ms(long nanos) { return nanos / 1e6; }
+    }
+
+    private final CseClient client;
+    private final int concurrency;
+    private final double rate;
+    private final int pages;
+    private final int batchSize;
+    private final Path tmp;
+    private final AtomicLong queryIds = new AtomicLong();
+
+    LoadDriver(CseClient client, int concurrency, double rate, int pages, int batchSize) throws IOException {
+        this.client = client;
+        this.concurrency = Math.max(concurrency, 1);
+        this.rate = rate;
+        this.pages = Math.min(Math.max(pages, 1), CseClient.MAX_PAGES);
+        this.batchSize = Math.max(batchSize, 1);
+        this.tmp = Files.createTempDirectory("cse-load");
+        tmp.toFile().deleteOnExit();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String endpoint = null;
+        List<Workload> workloads = List.of(Workload.values());
+        int duration = 20, warmup = 5, concurrency = 32, pages = 5, batchSize = 20, stubCount = 1;
+        double rate = 0;
+        CseStubServer.Options stubOptions = new CseStubServer.Options();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String v = args[i + 1];
+            switch (args[i]) {
+                case "--endpoint" -> endpoint = v;
+                case "--workload" -> workloads = Arrays.stream(v.split(","))
+                        .map(w -> Workload.valueOf(w.trim().toUpperCase(Locale.ROOT))).toList();
+                case "--duration" -> duration = Integer.parseInt(v);
+                case "--warmup" -> warmup = Integer.parseInt(v);
+                case "--concurrency" -> concurrency = Integer.parseInt(v);
+                case "--rate" -> rate = Double.parseDouble(v);
+                case "--pages" -> pages = Integer.parseInt(v);
+                case "--batch-size" -> batchSize = Integer.parseInt(v);
+                case "--stubs" -> stubCount = Math.max(Integer.parseInt(v), 1);
+                default -> {
+                    if (!stubOptions.accept(args[i], v)) throw new IllegalArgumentException("Tham số không hợp lệ: " + args[i]);
+                }
+            }
+        }
+
+        List<CseStubServer> stubs = new ArrayList<>();
+        if (endpoint == null) {
+            for (int i = 0; i < stubCount; i++) {
+                CseStubServer stub = new CseStubServer(new InetSocketAddress("127.0.0.1", 0), stubOptions);
+                stub.start();
+                stubs.add(stub);
+                System.err.println("CSE giả tại " + stub.endpoint() + " (" + stubOptions + ")");
+            }
+            endpoint = stubs.get(0).endpoint();
+        }
+
+        MemoryPreferences prefs = new MemoryPreferences();
+        prefs.put(CseClient.PREF_ENDPOINT, endpoint);
+        prefs.put(CseClient.PREF_KEY, "loadtest"); // không gửi key thật tới endpoint thử
+        prefs.put(CseClient.PREF_CX, "loadtest");
+        // Server giả thứ 2.. là các key phụ cùng CX: cùng nội dung nên được hedge với nhau
+        StringBuilder engines = new StringBuilder();
+        for (int i = 1; i < stubs.size(); i++) {
+            engines.append("loadtest-").append(i).append(" loadtest ").append(stubs.get(i).endpoint()).append('\n');
+        }
+        prefs.put(CseClient.PREF_ENGINES, engines.toString());
+        CseClient client = new CseClient(prefs, null);
+        client.setQuotaLimits(Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+        LoadDriver driver = new LoadDriver(client, concurrency, rate, pages, batchSize);
+        System.err.printf(Locale.ROOT, "%s, concurrency=%d, rate=%s, pages=%d, batch=%d, %ds (+%ds warmup)%n",
+                rate > 0 ? "vòng mở" : "vòng kín", concurrency, rate > 0 ? rate + "/s" : "-", pages, batchSize,
+                duration, warmup);
+        try {
+            for (Workload w : workloads) {
+                System.out.println(driver.run(w, warmup, duration));
+            }
+            if (client.hedges() > 0) {
+                System.out.println("hedge: " + client.hedges() + " request dự phòng, " + client.hedgeWins() + " lần về trước");
+            }
+        } finally {
+            for (CseStubServer stub : stubs) {
+                System.err.println("Server giả " + stub.port() + ": " + stub.requests() + " request, theo mã " + stub.statusCounts());
+                stub.stop();
+            }
+        }
+    }
+
+    /** Chạy một workload: {@code warmup} giây không ghi nhận, rồi {@code duration} giây đo. */
+    String run(Workload w, int warmupSeconds, int durationSeconds) throws InterruptedException {
+        Op op = switch (w) {
+            case SINGLE -> id -> client.search(query(id), CseClient.PAGE_SIZE, 1);
+            case MULTI -> id -> client.searchAll(query(id), pages, pages);
+            case BATCH -> this::runBatch;
+        };
+        long unitsPerOp = switch (w) {
+            case SINGLE -> 1;
+            case MULTI -> pages;
+            case BATCH -> batchSize;
+        };
+        // Một batch đã tự chạy song song bên trong, nên chỉ chạy một batch mỗi lúc
+        int workers = w == Workload.BATCH ? 1 : concurrency;
+
+        Samples samples = new Samples();
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (rate > 0 && w != Workload.BATCH) {
+                openLoop(exec, op, samples, measureFrom, end);
+            } else {
+                for (int i = 0; i < workers; i++) {
+                    exec.submit(() -> {
+                        while (System.nanoTime() < end) {
+                            timed(op, System.nanoTime(), samples, measureFrom);
+                        }
+                        return null;
+                    });
+                }
+            }
+        }
+        return samples.report(w.name().toLowerCase(Locale.ROOT), durationSeconds, unitsPerOp);
+    }
+
+    private void openLoop(ExecutorService exec, Op op, Samples samples, long measureFrom, long end)
+            throws InterruptedException {
+        long interval = (long) (1e9 / rate);
+        long t0 = System.nanoTime();
+        for (long i = 0; ; i++) {
+            long intended = t0 + i * interval;
+            if (intended >= end) break;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+            exec.submit(() -> timed(op, intended, samples, measureFrom));
+        }
+    }
+
+    private void timed(Op op, long startedAt, Samples samples, long measureFrom) {
+        boolean measured = startedAt >= measureFrom;
+        try {
+            op.run(queryIds.incrementAndGet());
+            if (measured) samples.add(System.nanoTime() - startedAt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            if (measured) samples.error(e);
+        }
+    }
+
+    private void runBatch(long id) throws Exception {
+        Path in = tmp.resolve("batch-" + id + ".tsv");
+        Path out = tmp.resolve("batch-" + id + ".jsonl");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < batchSize; i++) {
+            sb.append("điện thoại\t").append(queryIds.incrementAndGet()).append("\tprice\n");
+        }
+        Files.writeString(in, sb, StandardCharsets.UTF_8);
+        try {
+            BatchSearch.Stats st = BatchSearch.run(client, in, out, concurrency, 1);
+            if (st.errors() > 0) throw new IllegalStateException(st.errors() + " truy vấn lỗi trong batch");
+        } finally {
+            try {
+                Files.deleteIfExists(in);
+                Files.deleteIfExists(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static String query(long id) {
+        return "điện thoại giá " + id;
+    }
+}
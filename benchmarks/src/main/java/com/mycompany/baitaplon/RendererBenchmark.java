@@ -0,0 +1,46 @@
+package com.mycompany.baitaplon;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.swing.JList;
+import java.awt.Component;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí dựng một ô kết quả: {@code getListCellRendererComponent} rồi {@code getPreferredSize},
+ * đúng những gì JList gọi khi đo và vẽ từng dòng. Chạy headless, không cần màn hình.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RendererBenchmark {
+
+    @Param({"false", "true"})
+    public boolean priceMode;
+
+    private List<ResultItem> rows;
+    private JList<ResultItem> list;
+    private ResultRenderer renderer;
+    private int next;
+
+    @Setup
+    public void setup() {
+        rows = Fixtures.results(30);
+        list = new JList<>(rows.toArray(new ResultItem[0]));
+        list.setSize(860, 600);
+        renderer = new ResultRenderer(() -> priceMode);
+    }
+
+    @Benchmark
+    public void renderRow(Blackhole bh) {
+        int i = next;
+        next = (next + 1) % rows.size();
+        Component c = renderer.getListCellRendererComponent(list, rows.get(i), i, i == 0, false);
+        bh.consume(c.getPreferredSize());
+    }
+}
@@ -0,0 +1,78 @@
+package com.mycompany.baitaplon;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đọc một trang response CSE (10 item, có pagemap): cây {@code ObjectMapper.readTree} trên String
+ * như {@code googleSearch} cũ, so với streaming {@link CseResponseParser} trên byte.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ResponseParseBenchmark {
+
+    @Param({"cse-page1.json", "cse-error-429.json"})
+    public String fixture;
+
+    private byte[] body;
+    private String bodyString;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonFactory factory = new JsonFactory();
+
+    @Setup
+    public void setup() {
+        body = Fixtures.bytes(fixture);
+        bodyString = new String(body, StandardCharsets.UTF_8);
+    }
+
+    /** Cách cũ: body giải mã thành String rồi dựng toàn bộ cây JsonNode. */
+    @Benchmark
+    public void tree(Blackhole bh) throws IOException {
+        // Giải mã UTF-8 là một phần chi phí của BodyHandlers.ofString trước đây
+        String s = new String(body, StandardCharsets.UTF_8);
+        JsonNode root = mapper.readTree(s);
+        JsonNode err = root.path("error");
+        if (!err.isMissingNode() && err.has("message")) {
+            bh.consume(err.path("message").asText());
+            return;
+        }
+        List<ResultItem> out = new ArrayList<>();
+        for (JsonNode it : root.path("items")) {
+            String link = it.path("link").asText("");
+            String displayLink = it.path("displayLink").asText(CseResponseParser.hostOf(link));
+            if (!link.isBlank()) {
+                out.add(new ResultItem(it.path("title").asText(""), link, it.path("snippet").asText(""), displayLink));
+            }
+        }
+        bh.consume(out.size());
+    }
+
+    /** Như {@link #tree} nhưng bỏ qua bước giải mã, để tách riêng chi phí dựng cây. */
+    @Benchmark
+    public void treeFromString(Blackhole bh) throws IOException {
+        bh.consume(mapper.readTree(bodyString).path("items").size());
+    }
+
+    @Benchmark
+    public void streaming(Blackhole bh) throws IOException {
+        try {
+            bh.consume(CseResponseParser.parse(factory, new ByteArrayInputStream(body)).size());
+        } catch (RuntimeException apiError) {
+            bh.consume(apiError.getMessage());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.mycompany.baitaplon;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.JComponent;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Danh sách đang có {@code n} kết quả: thêm một trang rồi vẽ lại, và cuộn một màn hình rồi vẽ, với
+ * {@link ResultListView} so với JList chiều cao dòng thay đổi (đo lại mọi dòng sau mỗi lần model đổi).
+ * Vẽ vào ảnh trong bộ nhớ nên chạy headless.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ResultListViewBenchmark {
+    private static final int WIDTH = 860, HEIGHT = 600;
+
+    @Param({"1000", "100000"})
+    public int n;
+
+    @Param({"view", "jlist"})
+    public String impl;
+
+    private List<ResultItem> page;
+    private ResultListModel model;
+    private JScrollPane sp;
+    private final BufferedImage frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    private int y;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        page = Fixtures.results(CseClient.PAGE_SIZE);
+        model = new ResultListModel();
+        model.setResults(Fixtures.results(n));
+        ResultRenderer renderer = new ResultRenderer(() -> false);
+        JComponent list;
+        if (impl.equals("view")) {
+            list = new ResultListView(model, renderer);
+        } else {
+            JList<ResultItem> jl = new JList<>(model);
+            jl.setCellRenderer(renderer);
+            jl.setFixedCellHeight(-1);
+            list = jl;
+        }
+        sp = new JScrollPane(list);
+        sp.setSize(WIDTH, HEIGHT);
+        paint();
+    }
+
+    /** Không có peer nên validate() không làm gì; tự layout như khi cửa sổ được vẽ lại. */
+    private void paint() {
+        sp.doLayout();
+        sp.getViewport().doLayout();
+        sp.getViewport().getView().doLayout();
+        Graphics2D g = frame.createGraphics();
+        sp.paint(g);
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage appendPage() {
+        model.append(page);
+        paint();
+        return frame;
+    }
+
+    @Benchmark
+    public BufferedImage scrollScreen() {
+        int max = Math.max(sp.getViewport().getView().getHeight() - HEIGHT, 1);
+        y = (y + HEIGHT) % max;
+        sp.getViewport().setViewPosition(new Point(0, y));
+        paint();
+        return frame;
+    }
+}
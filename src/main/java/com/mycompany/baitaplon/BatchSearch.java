@@ -0,0 +1,167 @@
+package com.mycompany.baitaplon;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chế độ batch không giao diện (không nạp AWT/Swing).
+ *
+ * <pre>
+ * java -cp ... BatchSearch keywords.tsv results.jsonl [--concurrency 8] [--pages 1] [--quota-day N] [--quota-minute N]
+ * </pre>
+ * File kết quả là {@code .jsonl} hoặc {@code .csv}, thêm {@code .gz} để nén ({@link ResultExporter}).
+ *
+ * Mỗi dòng input: {@code tuKhoa1 [TAB tuKhoa2] [TAB tuKhoa3] [TAB price]} — cột cuối là cờ chế độ giá
+ * ({@code price}/{@code giá}/{@code true}/{@code 1}). Dòng trống và dòng bắt đầu bằng {@code #} bị bỏ qua.
+ * Mỗi kết quả được ghi ngay thành một dòng khi trang của nó về.
+ */
+public final class BatchSearch {
+
+    private BatchSearch() {}
+
+    record Job(int line, List<String> keywords, boolean priceMode) {
+        String query() { return CseClient.buildQuery(keywords, priceMode); }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Dùng: BatchSearch <keywords.tsv> <out.jsonl|.csv[.gz]> [--concurrency N] [--pages N] [--quota-day N] [--quota-minute N]");
+            System.exit(2);
+        }
+        Path in = Path.of(args[0]);
+        Path out = Path.of(args[1]);
+        int concurrency = 8, pages = 1, quotaDay = 0, quotaMinute = 0;
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--concurrency" -> concurrency = Integer.parseInt(args[i + 1]);
+                case "--pages" -> pages = Integer.parseInt(args[i + 1]);
+                case "--quota-day" -> quotaDay = Integer.parseInt(args[i + 1]);
+                case "--quota-minute" -> quotaMinute = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Tham số không hợp lệ: " + args[i]);
+            }
+        }
+
+        CseClient client = new CseClient();
+        if (!client.isConfigured()) {
+            System.err.println("Thiếu cấu hình: đặt GOOGLE_CSE_KEY/GOOGLE_CSE_CX (biến môi trường hoặc -D) hoặc lưu trong app.");
+            System.exit(2);
+        }
+        client.applyQuotaOptions(quotaDay, quotaMinute);
+
+        long t0 = System.nanoTime();
+        Stats st = run(client, in, out, concurrency, pages);
+        System.err.printf(Locale.ROOT, "Xong: %d truy vấn, %d kết quả (bỏ %d trùng), %d lỗi trong %.1fs%n",
+                st.queries, st.results, st.duplicates, st.errors, (System.nanoTime() - t0) / 1e9);
+    }
+
+    record Stats(int queries, long results, int errors, int duplicates) {}
+
+    /**
+     * Chạy tất cả job với tối đa {@code concurrency} truy vấn cùng lúc. Việc đọc input bị chặn khi đủ
+     * số truy vấn đang chạy nên bộ nhớ không phụ thuộc kích thước file.
+     */
+    static Stats run(CseClient client, Path in, Path out, int concurrency, int pages) throws Exception {
+        Semaphore permits = new Semaphore(Math.max(concurrency, 1));
+        AtomicBoolean quotaExhausted = new AtomicBoolean();
+        AtomicInteger queries = new AtomicInteger(), errors = new AtomicInteger();
+        AtomicLong results = new AtomicLong();
+        ResultDeduper deduper = new ResultDeduper(); // trùng giữa các trang và giữa các truy vấn
+
+        try (BufferedReader reader = Files.newBufferedReader(in, StandardCharsets.UTF_8);
+             ResultExporter exporter = ResultExporter.open(out)) {
+
+            try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+                String line;
+                int lineNo = 0;
+                while ((line = reader.readLine()) != null && !quotaExhausted.get()) {
+                    lineNo++;
+                    Job job = parseLine(lineNo, line);
+                    if (job == null) continue;
+
+                    permits.acquire();
+                    queries.incrementAndGet();
+                    exec.submit(() -> {
+                        try {
+                            client.searchPages(job.query(), pages, 1, page -> {
+                                List<ResultItem> fresh = deduper.filter(page);
+                                writeResults(exporter, job, fresh);
+                                results.addAndGet(fresh.size());
+                            });
+                        } catch (QuotaLimiter.QuotaExceededException e) {
+                            quotaExhausted.set(true);
+                            errors.incrementAndGet();
+                            System.err.println("Dừng: " + e.getMessage());
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            System.err.println("Dòng " + job.line() + " (" + job.query() + "): " + describe(e));
+                        } finally {
+                            permits.release();
+                        }
+                        return null;
+                    });
+                }
+            }
+        }
+        return new Stats(queries.get(), results.get(), errors.get(), deduper.dropped());
+    }
+
+    private static String describe(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    static Job parseLine(int lineNo, String line) {
+        String s = line.strip();
+        if (s.isEmpty() || s.startsWith("#")) return null;
+
+        String[] cols = s.split("\t");
+        int n = cols.length;
+        boolean price = false;
+        if (n > 1 && isPriceFlag(cols[n - 1])) {
+            price = true;
+            n--;
+        } else if (n > 1 && isFalseFlag(cols[n - 1])) {
+            n--;
+        }
+
+        List<String> ks = new ArrayList<>(3);
+        for (int i = 0; i < Math.min(n, 3); i++) {
+            String k = cols[i].trim();
+            if (!k.isEmpty()) ks.add(k);
+        }
+        return ks.isEmpty() ? null : new Job(lineNo, ks, price);
+    }
+
+    private static boolean isPriceFlag(String s) {
+        return switch (s.trim().toLowerCase(Locale.ROOT)) {
+            case "price", "giá", "gia", "true", "1" -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isFalseFlag(String s) {
+        return switch (s.trim().toLowerCase(Locale.ROOT)) {
+            case "false", "0", "-" -> true;
+            default -> false;
+        };
+    }
+
+    private static void writeResults(ResultExporter exporter, Job job, List<ResultItem> page) {
+        try {
+            exporter.write(new ResultExporter.Source(job.line(), job.query(), job.priceMode()), page);
+        } catch (IOException e) {
+            throw new RuntimeException("Không ghi được kết quả: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,562 @@
+package com.mycompany.baitaplon;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * Lõi tìm kiếm Google CSE, không phụ thuộc Swing/AWT: cấu hình key/cx, HttpClient dùng chung,
+ * cache bộ nhớ + đĩa, giới hạn quota và đọc response. Dùng chung cho giao diện và chế độ batch.
+ *
+ * <p>Ngoài key/cx chính có thể khai báo thêm engine ({@value #PREF_ENGINES}): các key cùng một CX được gộp
+ * thành {@link HedgedProvider} (chia quota, gửi dự phòng khi chậm), các CX khác nhau được hỏi song song và
+ * xếp hạng chung bằng {@link MergedProvider}.</p>
+ */
+final class CseClient {
+
+    // Node "<unnamed>" từ thời app còn ở default package; giữ nguyên để không mất key/cx đã lưu
+    static final Preferences PREF = Preferences.userRoot().node("<unnamed>");
+    static final String PREF_KEY = "GOOGLE_CSE_KEY";
+    static final String PREF_CX  = "GOOGLE_CSE_CX";
+    static final String PREF_ENDPOINT = "GOOGLE_CSE_ENDPOINT";
+    static final String PREF_ENGINES = "GOOGLE_CSE_ENGINES";
+    static final String DEFAULT_ENDPOINT = "https://www.googleapis.com/customsearch/v1";
+
+    // CSE chỉ trả tối đa 100 kết quả: start = 1, 11, ..., 91
+    static final int PAGE_SIZE = 10;
+    static final int MAX_PAGES = 10;
+
+    // ====== HTTP/JSON ======
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(12))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    // Làm nóng kết nối: HttpClient giữ kết nối rảnh ~30 s (jdk.httpclient.keepalive.timeout), nên trong
+    // 20 s sau lần làm nóng trước không gửi lại
+    private static final long PREWARM_EVERY_NS = Duration.ofSeconds(20).toNanos();
+    private static final byte[] PREWARM_JSON =
+            "{\"items\":[{\"title\":\"\",\"link\":\"\",\"snippet\":\"\",\"displayLink\":\"\"}]}".getBytes(StandardCharsets.UTF_8);
+    private final AtomicLong lastPrewarm = new AtomicLong(System.nanoTime() - PREWARM_EVERY_NS);
+
+    // ====== Cache (query đã chuẩn hoá + tham số) ======
+    static final String HL = "vi", GL = "vn", SAFE = "active";
+    private record CacheKey(String query, String hl, String gl, String safe, int start) {}
+    private final QueryCache<CacheKey, List<ResultItem>> cache = new QueryCache<>(256, Duration.ofMinutes(30));
+
+    // Cache response trên đĩa (~/.googlecse/cache); null nếu không mở được
+    private static final Duration DISK_TTL = Duration.ofHours(24);
+    private final DiskResponseCache diskCache;
+
+    // Giới hạn quota phía client cho key chính; key phụ có limiter riêng (quota tính theo key)
+    private final QuotaLimiter limiter;
+    private final Map<String, QuotaLimiter> extraLimiters = new HashMap<>();
+
+    // Thời gian từng pha của request (và của giao diện, do app ghi vào)
+    private final SearchMetrics metrics = new SearchMetrics();
+
+    private final Preferences pref;
+    private final String endpoint;
+    private String apiKey;
+    private String cx;
+    private String engineSpec;
+
+    // Cây nguồn dựng từ key/cx chính + engine phụ; dựng lại khi đổi cấu hình
+    private final ExecutorService providerExec = Executors.newVirtualThreadPerTaskExecutor();
+    private SearchProvider provider;
+    private List<CseEngine> engines = List.of();
+    private List<HedgedProvider> hedged = List.of();
+
+    /** Key/CX lấy từ Preferences, nếu trống thì từ -DGOOGLE_CSE_KEY/-DGOOGLE_CSE_CX hoặc biến môi trường. */
+    CseClient() {
+        this(PREF, openDiskCache());
+    }
+
+    /**
+     * Dùng node Preferences và cache đĩa (có thể null) riêng, ví dụ khi chạy thử tải với server giả
+     * mà không đụng tới quota/cache thật. Endpoint lấy theo cùng thứ tự với key/cx
+     * ({@code GOOGLE_CSE_ENDPOINT}), mặc định là API thật của Google.
+     */
+    CseClient(Preferences pref, DiskResponseCache diskCache) {
+        this.pref = pref;
+        this.diskCache = diskCache;
+        this.limiter = new QuotaLimiter(pref);
+        this.apiKey = pref.get(PREF_KEY, setting(PREF_KEY));
+        this.cx = pref.get(PREF_CX, setting(PREF_CX));
+        String ep = pref.get(PREF_ENDPOINT, setting(PREF_ENDPOINT));
+        this.endpoint = ep.isBlank() ? DEFAULT_ENDPOINT : ep;
+        this.engineSpec = pref.get(PREF_ENGINES, setting(PREF_ENGINES));
+        rebuildProviders();
+    }
+
+    private static String setting(String name) {
+        String v = System.getProperty(name);
+        if (v == null || v.isBlank()) v = System.getenv(name);
+        return v == null ? "" : v.trim();
+    }
+
+    synchronized String apiKey() { return apiKey; }
+    synchronized String cx() { return cx; }
+
+    synchronized boolean isConfigured() {
+        return !apiKey.isBlank() && !cx.isBlank();
+    }
+
+    /** Lưu key/cx vào Preferences. */
+    synchronized void setCredentials(String apiKey, String cx) {
+        this.apiKey = apiKey;
+        this.cx = cx;
+        pref.put(PREF_KEY, apiKey);
+        pref.put(PREF_CX, cx);
+        rebuildProviders();
+        cache.clear(); // kết quả cũ thuộc engine khác
+    }
+
+    synchronized String engineSpec() { return engineSpec; }
+
+    /**
+     * Engine phụ, mỗi dòng (hoặc cách nhau bởi {@code ;}) một engine: {@code cx}, {@code key cx} hoặc
+     * {@code key cx endpoint}; thiếu key/endpoint thì dùng của engine chính.
+     * @throws IllegalArgumentException nếu có dòng sai dạng
+     */
+    synchronized void setEngineSpec(String spec) {
+        parseEngines(spec); // kiểm tra trước khi lưu
+        this.engineSpec = spec.strip();
+        pref.put(PREF_ENGINES, engineSpec);
+        rebuildProviders();
+        cache.clear();
+    }
+
+    private record EngineConfig(String apiKey, String cx, String endpoint) {}
+
+    private List<EngineConfig> parseEngines(String spec) {
+        List<EngineConfig> out = new ArrayList<>();
+        for (String line : spec.split("[;\\n]")) {
+            String[] t = line.strip().split("\\s+");
+            if (t[0].isEmpty()) continue;
+            switch (t.length) {
+                case 1 -> out.add(new EngineConfig(apiKey, t[0], endpoint));
+                case 2 -> out.add(new EngineConfig(t[0], t[1], endpoint));
+                case 3 -> out.add(new EngineConfig(t[0], t[1], t[2]));
+                default -> throw new IllegalArgumentException("Engine sai dạng (cần: [key] cx [endpoint]): " + line.strip());
+            }
+        }
+        return out;
+    }
+
+    /** Gom engine theo CX: cùng CX thì hedge giữa các key, khác CX thì trộn kết quả. */
+    private void rebuildProviders() {
+        List<EngineConfig> configs = new ArrayList<>();
+        configs.add(new EngineConfig(apiKey, cx, endpoint));
+        try {
+            for (EngineConfig c : parseEngines(engineSpec)) if (!configs.contains(c)) configs.add(c);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Bỏ qua " + PREF_ENGINES + ": " + e.getMessage());
+        }
+
+        Map<String, List<CseEngine>> byCx = new LinkedHashMap<>();
+        List<CseEngine> all = new ArrayList<>();
+        for (EngineConfig c : configs) {
+            CseEngine e = new CseEngine(http, jsonFactory, metrics, limiterFor(c.apiKey()), c.endpoint(), c.apiKey(), c.cx());
+            byCx.computeIfAbsent(c.cx(), k -> new ArrayList<>()).add(e);
+            all.add(e);
+        }
+
+        List<SearchProvider> groups = new ArrayList<>(byCx.size());
+        List<HedgedProvider> hedgedGroups = new ArrayList<>();
+        for (List<CseEngine> g : byCx.values()) {
+            if (g.size() == 1) {
+                groups.add(g.get(0)); // một key thì không hedge: request dự phòng sẽ tốn quota của chính key đó
+            } else {
+                HedgedProvider h = new HedgedProvider(g, providerExec);
+                hedgedGroups.add(h);
+                groups.add(h);
+            }
+        }
+        this.engines = List.copyOf(all);
+        this.hedged = List.copyOf(hedgedGroups);
+        this.provider = groups.size() == 1 ? groups.get(0) : new MergedProvider(groups, providerExec);
+    }
+
+    /** Quota tính theo key: key chính dùng limiter gốc, key phụ có node Preferences riêng (theo hash, không lưu key). */
+    private QuotaLimiter limiterFor(String key) {
+        if (key.equals(apiKey)) return limiter;
+        return extraLimiters.computeIfAbsent(key, k -> {
+            Preferences engines = pref.node("engines");
+            Preferences node = engines.node(nodeName(k));
+            migrateLegacyNode(engines, Integer.toHexString(k.hashCode()), node);
+            QuotaLimiter l = new QuotaLimiter(node);
+            if (node.get(QuotaLimiter.PREF_DAY_LIMIT, null) == null) l.setLimits(limiter.dailyLimit(), limiter.minuteLimit());
+            return l;
+        });
+    }
+
+    /**
+     * Tên node của một key: 16 ký tự hex đầu của SHA-256. {@code hashCode()} chỉ có 32 bit nên hai key có thể chung
+     * node (chung bộ đếm quota), và từ nó dò lại key ngắn dễ hơn nhiều.
+     */
+    static String nodeName(String key) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(d, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // JDK nào cũng có SHA-256
+        }
+    }
+
+    /** Bản cũ đặt tên node theo {@code hashCode()}: chuyển giới hạn và bộ đếm hôm nay sang node mới một lần. */
+    private static void migrateLegacyNode(Preferences parent, String legacyName, Preferences node) {
+        try {
+            if (!parent.nodeExists(legacyName) || node.keys().length > 0) return;
+            Preferences legacy = parent.node(legacyName);
+            for (String k : legacy.keys()) node.put(k, legacy.get(k, ""));
+            legacy.removeNode();
+        } catch (BackingStoreException | IllegalStateException e) {
+            // không đọc được node cũ: bắt đầu lại với giới hạn của key chính
+        }
+    }
+
+    /**
+     * Giới hạn quota cho các chế độ không giao diện (BatchSearch, SearchServer, PriceWatcher): tham số dòng lệnh
+     * ({@code <= 0} = không có), nếu không thì {@code -DGOOGLE_CSE_QUOTA_DAY_LIMIT}/{@code -DGOOGLE_CSE_QUOTA_MINUTE_LIMIT}
+     * hoặc biến môi trường cùng tên; không có gì thì giữ giới hạn đã lưu trong Preferences.
+     */
+    synchronized void applyQuotaOptions(int perDay, int perMinute) {
+        if (perDay <= 0) perDay = intSetting(QuotaLimiter.PREF_DAY_LIMIT);
+        if (perMinute <= 0) perMinute = intSetting(QuotaLimiter.PREF_MINUTE_LIMIT);
+        if (perDay <= 0 && perMinute <= 0) return;
+        setQuotaLimits(perDay > 0 ? perDay : limiter.dailyLimit(), perMinute > 0 ? perMinute : limiter.minuteLimit());
+    }
+
+    private static int intSetting(String name) {
+        String v = setting(name);
+        if (v.isEmpty()) return 0;
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " không phải số: " + v);
+        }
+    }
+
+    /** Đặt giới hạn quota (mỗi key) cho key chính và mọi key phụ. */
+    synchronized void setQuotaLimits(int perDay, int perMinute) {
+        limiter.setLimits(perDay, perMinute);
+        for (QuotaLimiter l : extraLimiters.values()) l.setLimits(perDay, perMinute);
+    }
+
+    String endpoint() { return endpoint; }
+
+    /** Limiter của key chính (giới hạn chỉnh trong phần cài đặt). */
+    QuotaLimiter limiter() { return limiter; }
+
+    synchronized SearchProvider provider() { return provider; }
+
+    /** Số engine (key × cx) đang dùng. */
+    synchronized int engineCount() { return engines.size(); }
+
+    /** Quota đã dùng / giới hạn hôm nay, cộng trên mọi key đang dùng. */
+    synchronized int quotaUsed() {
+        int sum = 0;
+        for (QuotaLimiter l : distinctLimiters()) sum += l.usedToday();
+        return sum;
+    }
+
+    /** Như {@link #quotaUsed} nhưng theo giá trị đã biết, không đọc file đếm: dùng trên EDT. */
+    synchronized int quotaUsedCached() {
+        int sum = 0;
+        for (QuotaLimiter l : distinctLimiters()) sum += l.usedTodayCached();
+        return sum;
+    }
+
+    synchronized int quotaLimit() {
+        int sum = 0;
+        for (QuotaLimiter l : distinctLimiters()) sum += l.dailyLimit();
+        return sum;
+    }
+
+    /** Số request còn gửi được hôm nay, tính như một lượt tìm sẽ tiêu (trộn nhiều CX thì tốn quota mỗi CX). */
+    synchronized int quotaLeft() { return provider.quotaLeft(); }
+
+    private Set<QuotaLimiter> distinctLimiters() {
+        Set<QuotaLimiter> out = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (CseEngine e : engines) out.add(e.limiter());
+        return out;
+    }
+
+    /** Request dự phòng đã gửi / số lần dự phòng về trước, cộng trên các nhóm có nhiều key. */
+    synchronized long hedges() {
+        long n = 0;
+        for (HedgedProvider h : hedged) n += h.hedges();
+        return n;
+    }
+
+    synchronized long hedgeWins() {
+        long n = 0;
+        for (HedgedProvider h : hedged) n += h.hedgeWins();
+        return n;
+    }
+
+    /** Số lần chuyển sang key kế tiếp vì key trước lỗi (không tính vào ngân sách dự phòng). */
+    synchronized long failovers() {
+        long n = 0;
+        for (HedgedProvider h : hedged) n += h.failovers();
+        return n;
+    }
+
+    SearchMetrics metrics() { return metrics; }
+
+    /**
+     * Mở sẵn kết nối (DNS, TLS, HTTP/2) tới host của mọi engine bằng một HEAD tới gốc host (không có key nên
+     * không tốn quota), và nạp sẵn các lớp đọc JSON, để lượt tìm đầu không phải trả các chi phí đó.
+     * Gọi lại trong 20 s kể từ lần trước thì không làm gì.
+     * @return xong khi mọi host đã trả lời hoặc lỗi (lỗi bị bỏ qua: lượt tìm thật sẽ báo)
+     */
+    CompletableFuture<Void> prewarm() {
+        long now = System.nanoTime(), last = lastPrewarm.get();
+        if (now - last < PREWARM_EVERY_NS || !lastPrewarm.compareAndSet(last, now)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Set<URI> origins = new LinkedHashSet<>();
+        List<CseEngine> all;
+        synchronized (this) { all = engines; }
+        for (CseEngine e : all) {
+            try {
+                URI u = URI.create(e.endpoint());
+                if (u.getScheme() != null && u.getScheme().startsWith("http")) {
+                    origins.add(new URI(u.getScheme(), null, u.getHost(), u.getPort(), "/", null, null));
+                }
+            } catch (Exception ignored) {
+                // endpoint sai dạng: để lượt tìm thật báo lỗi
+            }
+        }
+
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        for (URI origin : origins) {
+            HttpRequest req = HttpRequest.newBuilder(origin)
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .timeout(Duration.ofSeconds(10))
+                    .build();
+            long t0 = System.nanoTime();
+            pending.add(http.sendAsync(req, HttpResponse.BodyHandlers.discarding())
+                    .handle((r, ex) -> {
+                        if (ex == null) metrics.record(SearchMetrics.Phase.PREWARM, System.nanoTime() - t0);
+                        return null;
+                    }));
+        }
+        pending.add(CompletableFuture.runAsync(() -> {
+            try {
+                CseResponseParser.parse(jsonFactory, new ByteArrayInputStream(PREWARM_JSON));
+            } catch (Exception ignored) {
+                // chỉ để nạp lớp
+            }
+        }, providerExec));
+        return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new));
+    }
+
+    /** HttpClient dùng chung (pool kết nối), ví dụ cho {@link LinkPriceFetcher}. */
+    HttpClient http() { return http; }
+
+    long cacheHits() { return cache.hits(); }
+    long cacheMisses() { return cache.misses(); }
+    long cacheCoalesced() { return cache.coalesced(); }
+
+    /** Ghép từ khoá thành query; chế độ giá thêm "giá" ở cuối. */
+    static String buildQuery(List<String> keywords, boolean priceMode) {
+        return String.join(" ", keywords) + (priceMode ? " giá" : "");
+    }
+
+    /**
+     * Tải song song {@code pages} trang (start = 1, 11, ..., 91), tối đa {@code concurrency} request cùng lúc.
+     * Mỗi trang về sẽ được đưa ngay cho {@code onPage}; lỗi đầu tiên (nếu có) được ném lại sau khi các trang khác xong.
+     */
+    void searchPages(String query, int pages, int concurrency,
+                     Consumer<List<ResultItem>> onPage) throws Exception {
+        forEachPage(query, pages, concurrency, (job, page) -> onPage.accept(page));
+    }
+
+    /** Như {@link #searchPages} nhưng chờ đủ các trang và trả kết quả theo đúng thứ tự xếp hạng. */
+    List<ResultItem> searchAll(String query, int pages, int concurrency) throws Exception {
+        int n = Math.min(Math.max(pages, 1), MAX_PAGES);
+        List<List<ResultItem>> byPage = new ArrayList<>(Collections.nCopies(n, List.of()));
+        forEachPage(query, n, concurrency, (job, page) -> {
+            synchronized (byPage) {
+                byPage.set((job.start() - 1) / PAGE_SIZE, page);
+            }
+        });
+        List<ResultItem> out = new ArrayList<>(n * PAGE_SIZE);
+        for (List<ResultItem> page : byPage) out.addAll(page);
+        return out;
+    }
+
+    /**
+     * Chạy song song các truy vấn con của chế độ mở rộng ({@link QueryExpander}), mỗi truy vấn {@code pagesPerQuery}
+     * trang: tối đa {@code concurrency} request cùng lúc trên toàn bộ và không quá {@code maxRequests} trang — trang 1 của
+     * mọi truy vấn trước, rồi tới trang 2... để hết ngân sách thì phần bị bỏ là phần ít giá trị nhất.
+     * Mỗi trang về được đưa ngay cho {@code onPage}. Truy vấn con lỗi không làm hỏng các truy vấn khác.
+     *
+     * @return số trang lỗi
+     * @throws Exception lỗi đầu tiên, nếu mọi trang đều lỗi
+     */
+    int searchExpanded(List<String> queries, int pagesPerQuery, int concurrency, int maxRequests,
+                       BiConsumer<String, List<ResultItem>> onPage) throws Exception {
+        int pages = Math.min(Math.max(pagesPerQuery, 1), MAX_PAGES);
+        List<PageJob> jobs = new ArrayList<>();
+        for (int p = 0; p < pages; p++) {
+            for (String q : queries) {
+                if (jobs.size() >= maxRequests) break;
+                jobs.add(new PageJob(q, 1 + p * PAGE_SIZE));
+            }
+        }
+        if (jobs.isEmpty()) return 0;
+
+        List<Exception> errors = runPages(jobs, concurrency, (job, page) -> onPage.accept(job.query(), page));
+        if (errors.size() == jobs.size()) throw errors.get(0);
+        return errors.size();
+    }
+
+    private record PageJob(String query, int start) {}
+
+    private interface PageHandler {
+        void accept(PageJob job, List<ResultItem> page);
+    }
+
+    private void forEachPage(String query, int pages, int concurrency, PageHandler onPage) throws Exception {
+        int n = Math.min(Math.max(pages, 1), MAX_PAGES);
+        List<PageJob> jobs = new ArrayList<>(n);
+        for (int p = 0; p < n; p++) jobs.add(new PageJob(query, 1 + p * PAGE_SIZE));
+        List<Exception> errors = runPages(jobs, concurrency, onPage);
+        if (!errors.isEmpty()) throw errors.get(0);
+    }
+
+    /** Tải các trang, tối đa {@code concurrency} request cùng lúc; trả về lỗi theo thứ tự job, sau khi mọi job xong. */
+    private List<Exception> runPages(List<PageJob> jobs, int concurrency, PageHandler onPage) throws InterruptedException {
+        Semaphore permits = new Semaphore(Math.max(concurrency, 1));
+        List<Future<?>> tasks = new ArrayList<>(jobs.size());
+
+        try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (PageJob job : jobs) {
+                tasks.add(exec.submit(() -> {
+                    permits.acquire();
+                    try {
+                        List<ResultItem> page = search(job.query(), PAGE_SIZE, job.start());
+                        if (!page.isEmpty()) onPage.accept(job, page);
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }));
+            }
+        }
+
+        List<Exception> errors = new ArrayList<>(0);
+        for (Future<?> f : tasks) {
+            try {
+                f.get();
+            } catch (ExecutionException ex) {
+                errors.add(ex.getCause() instanceof Exception e ? e : ex);
+            }
+        }
+        return errors;
+    }
+
+    /** Chuẩn hoá query (NFC, lower-case, gộp khoảng trắng) để làm key cache. */
+    static String normalizeQuery(String query) {
+        String s = Normalizer.normalize(query, Normalizer.Form.NFC);
+        return s.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /** Tra cache trước; các lời gọi trùng đang chạy sẽ dùng chung một HTTP request. */
+    List<ResultItem> search(String query, int num, int start) throws Exception {
+        CacheKey key = new CacheKey(normalizeQuery(query), HL, GL, SAFE, start);
+        return cache.get(key, () -> fetchPage(query, num, start, true));
+    }
+
+    /**
+     * Luôn hỏi API (bỏ qua cache bộ nhớ và đĩa) rồi cập nhật cả hai cache bằng kết quả mới; dùng khi cần giá hiện tại,
+     * như {@link PriceWatcher}.
+     */
+    List<ResultItem> searchFresh(String query, int num, int start) throws Exception {
+        List<ResultItem> out = fetchPage(query, num, start, false);
+        cache.put(new CacheKey(normalizeQuery(query), HL, GL, SAFE, start), out);
+        return out;
+    }
+
+    private static DiskResponseCache openDiskCache() {
+        try {
+            DiskResponseCache dc = new DiskResponseCache(DiskResponseCache.defaultDir(), 64L << 20, 16384);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try { dc.close(); } catch (Exception ignored) {}
+            }));
+            return dc;
+        } catch (Exception e) {
+            System.err.println("Không mở được cache trên đĩa (chạy không cache đĩa): " + e.getMessage());
+            return null;
+        }
+    }
+
+    private List<ResultItem> fetchPage(String query, int num, int start, boolean readDisk) throws Exception {
+        SearchProvider provider;
+        synchronized (this) {
+            if (apiKey.isBlank() || cx.isBlank()) throw new IllegalStateException("Chưa cấu hình API Key/CX");
+            provider = this.provider;
+        }
+
+        // Key đĩa không chứa API key, chỉ những gì quyết định nội dung response (tên nguồn = endpoint/cx)
+        String diskKey = provider.name() + "|" + HL + "|" + GL + "|" + SAFE + "|" + num + "|" + start + "|" + normalizeQuery(query);
+
+        if (diskCache != null && readDisk) {
+            long t0 = System.nanoTime();
+            byte[] cached = diskCache.get(diskKey);
+            if (cached != null) {
+                SearchMetrics.FetchEvent event = new SearchMetrics.FetchEvent();
+                event.begin();
+                List<ResultItem> out = CseResponseParser.parse(jsonFactory, new ByteArrayInputStream(cached));
+                metrics.record(SearchMetrics.Phase.DISK_CACHE, System.nanoTime() - t0);
+                event.query = query;
+                event.start = start;
+                event.engine = provider.name();
+                event.diskHit = true;
+                event.results = out.size();
+                event.commit();
+                return out;
+            }
+        }
+        List<ResultItem> out = provider.fetch(query, num, start);
+
+        // Response gốc không còn trong bộ nhớ; lưu bản rút gọn chỉ gồm các item đã đọc
+        if (diskCache != null) diskCache.put(diskKey, CseResponseParser.write(jsonFactory, out), DISK_TTL);
+        return out;
+    }
+}
@@ -0,0 +1,199 @@
+package com.mycompany.baitaplon;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Một engine CSE cụ thể: endpoint + API key + CX, cùng {@link QuotaLimiter} của key đó. Gửi request
+ * (thử lại 429/503 với backoff), đọc response và ghi thời gian từng pha vào {@link SearchMetrics}.
+ */
+final class CseEngine implements SearchProvider {
+
+    // 429 sẽ được thử lại với backoff
+    private static final int MAX_RETRIES = 4;
+
+    private final HttpClient http;
+    private final JsonFactory jsonFactory;
+    private final SearchMetrics metrics;
+    private final QuotaLimiter limiter;
+    private final String endpoint;
+    private final String apiKey;
+    private final String cx;
+
+    CseEngine(HttpClient http, JsonFactory jsonFactory, SearchMetrics metrics, QuotaLimiter limiter,
+              String endpoint, String apiKey, String cx) {
+        this.http = http;
+        this.jsonFactory = jsonFactory;
+        this.metrics = metrics;
+        this.limiter = limiter;
+        this.endpoint = endpoint;
+        this.apiKey = apiKey;
+        this.cx = cx;
+    }
+
+    // Không chứa API key: cùng CX thì cùng nội dung dù gửi bằng key nào.
+    // Endpoint khác mặc định (server giả) có vùng key riêng để không lẫn với kết quả thật
+    @Override public String name() {
+        return (endpoint.equals(CseClient.DEFAULT_ENDPOINT) ? "" : endpoint + "|") + cx;
+    }
+
+    String cx() { return cx; }
+
+    String endpoint() { return endpoint; }
+
+    String apiKey() { return apiKey; }
+
+    QuotaLimiter limiter() { return limiter; }
+
+    @Override public int quotaLeft() {
+        return Math.max(0, limiter.dailyLimit() - limiter.usedTodayCached()); // không chờ khoá file đếm
+    }
+
+    /** Để hiện trong JFR/log mà không lộ key: cx kèm 4 ký tự cuối của key. */
+    @Override public String toString() {
+        return cx + "/…" + apiKey.substring(Math.max(0, apiKey.length() - 4));
+    }
+
+    @Override
+    public List<ResultItem> fetch(String query, int num, int start) throws Exception {
+        SearchMetrics.FetchEvent event = new SearchMetrics.FetchEvent();
+        event.begin();
+        event.query = query;
+        event.start = start;
+        event.engine = toString();
+        long t0 = System.nanoTime();
+        try {
+            return fetchFromApi(query, num, start, event);
+        } finally {
+            // Request lỗi cũng được tính: đuôi chậm thường nằm ở đó
+            metrics.record(SearchMetrics.Phase.FETCH, System.nanoTime() - t0);
+            event.commit();
+        }
+    }
+
+    private List<ResultItem> fetchFromApi(String query, int num, int start,
+                                          SearchMetrics.FetchEvent event) throws Exception {
+        String q = URLEncoder.encode(query, StandardCharsets.UTF_8);
+
+        String url = endpoint
+                + "?key=" + URLEncoder.encode(apiKey, StandardCharsets.UTF_8)
+                + "&cx="  + URLEncoder.encode(cx, StandardCharsets.UTF_8)
+                + "&q=" + q
+                + "&num=" + Math.min(Math.max(num, 1), 10)
+                + "&start=" + Math.min(Math.max(start, 1), 91)
+                + "&hl=" + CseClient.HL + "&gl=" + CseClient.GL + "&safe=" + CseClient.SAFE;
+
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(18))
+                .header("User-Agent", "Mozilla/5.0 JavaHttpClient")
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+
+        // HttpClient không tách riêng connect/TLS: TTFB gồm cả bắt tay khi phải mở kết nối mới
+        HttpResponse<InputStream> resp;
+        long quotaWait = 0, ttfb = 0;
+        int attempt = 0;
+        try {
+            for (; ; attempt++) {
+                long a = System.nanoTime();
+                limiter.acquire();
+                long b = System.nanoTime();
+                quotaWait += b - a;
+                if (Thread.interrupted()) { // bị huỷ (người dùng gõ tiếp, hedge đã thắng) trước khi gửi: không tốn quota
+                    limiter.release();
+                    throw new InterruptedException();
+                }
+                resp = http.send(req, HttpResponse.BodyHandlers.ofInputStream());
+                ttfb += System.nanoTime() - b;
+                int sc = resp.statusCode();
+                if ((sc != 429 && sc != 503) || attempt >= MAX_RETRIES) break;
+                resp.body().close();
+                long c = System.nanoTime();
+                Thread.sleep(limiter.onThrottled(resp, attempt).toMillis());
+                quotaWait += System.nanoTime() - c;
+            }
+        } finally {
+            event.attempts = attempt + 1;
+            event.quotaWait = quotaWait;
+            event.ttfb = ttfb;
+            metrics.record(SearchMetrics.Phase.QUOTA_WAIT, quotaWait);
+            metrics.record(SearchMetrics.Phase.TTFB, ttfb);
+        }
+        event.status = resp.statusCode();
+
+        // Đọc và parse chạy đan xen trên cùng stream: thời gian nằm trong read() của body là tải,
+        // phần còn lại (giải nén gzip + JsonParser) là parse
+        TimedInputStream raw = new TimedInputStream(resp.body());
+        long p0 = System.nanoTime();
+        try (InputStream in = bodyStream(resp, raw)) {
+            if (resp.statusCode() >= 400) {
+                // Body lỗi nhỏ: đọc hết để lấy message của API, nếu không có thì hiện nguyên văn
+                byte[] body = in.readAllBytes();
+                try {
+                    CseResponseParser.parse(jsonFactory, new ByteArrayInputStream(body));
+                } catch (JsonProcessingException ignored) {
+                    // trang lỗi HTML/text của proxy, 502...: báo theo mã HTTP bên dưới
+                }
+                throw new RuntimeException("HTTP " + resp.statusCode() + " — " + new String(body, StandardCharsets.UTF_8));
+            }
+            limiter.onSuccess();
+            List<ResultItem> out = CseResponseParser.parse(jsonFactory, in);
+            event.results = out.size();
+            return out;
+        } finally {
+            long total = System.nanoTime() - p0;
+            event.download = raw.nanos;
+            event.parse = total - raw.nanos;
+            event.bytes = raw.bytes;
+            metrics.record(SearchMetrics.Phase.DOWNLOAD, raw.nanos);
+            metrics.record(SearchMetrics.Phase.PARSE, total - raw.nanos);
+        }
+    }
+
+    /** Đếm byte và thời gian nằm trong read() của body thô (trước giải nén). */
+    private static final class TimedInputStream extends FilterInputStream {
+        long nanos;
+        long bytes;
+
+        TimedInputStream(InputStream in) { super(in); }
+
+        @Override public int read() throws IOException {
+            long t = System.nanoTime();
+            int b = super.read();
+            nanos += System.nanoTime() - t;
+            if (b >= 0) bytes++;
+            return b;
+        }
+
+        @Override public int read(byte[] buf, int off, int len) throws IOException {
+            long t = System.nanoTime();
+            int n = super.read(buf, off, len);
+            nanos += System.nanoTime() - t;
+            if (n > 0) bytes += n;
+            return n;
+        }
+    }
+
+    private static InputStream bodyStream(HttpResponse<InputStream> resp, InputStream raw) throws IOException {
+        boolean gzip = resp.headers().firstValue("Content-Encoding")
+                .map(v -> v.trim().equalsIgnoreCase("gzip")).orElse(false);
+        return gzip ? new GZIPInputStream(raw, 8192) : new BufferedInputStream(raw, 8192);
+    }
+}
@@ -0,0 +1,104 @@
+package com.mycompany.baitaplon;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Đọc response CSE bằng streaming {@link JsonParser}: chỉ lấy title/link/snippet/displayLink trong
+ * {@code items}, bỏ qua phần còn lại (pagemap, queries, context...) và dừng ngay sau mảng {@code items}.
+ */
+final class CseResponseParser {
+
+    private CseResponseParser() {}
+
+    /**
+     * @throws RuntimeException với message của API nếu response là một {@code error}
+     */
+    static List<ResultItem> parse(JsonFactory factory, InputStream in) throws IOException {
+        List<ResultItem> out = new ArrayList<>(10);
+        try (JsonParser p = factory.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return out;
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken t = p.nextToken();
+                if ("items".equals(field) && t == JsonToken.START_ARRAY) {
+                    readItems(p, out);
+                    break; // không cần đọc tiếp phần sau items
+                } else if ("error".equals(field) && t == JsonToken.START_OBJECT) {
+                    String message = readErrorMessage(p);
+                    if (message != null) throw new RuntimeException(message);
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        return out;
+    }
+
+    private static void readItems(JsonParser p, List<ResultItem> out) throws IOException {
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            String title = "", link = "", snippet = "", displayLink = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String f = p.currentName();
+                JsonToken t = p.nextToken();
+                if (t == JsonToken.VALUE_STRING) {
+                    switch (f) {
+                        case "title" -> title = p.getText();
+                        case "link" -> link = p.getText();
+                        case "snippet" -> snippet = p.getText();
+                        case "displayLink" -> displayLink = p.getText();
+                        default -> { }
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+            if (!link.isBlank()) out.add(new ResultItem(title, link, snippet, displayLink != null ? displayLink : hostOf(link)));
+        }
+    }
+
+    private static String readErrorMessage(JsonParser p) throws IOException {
+        String message = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String f = p.currentName();
+            if (p.nextToken() == JsonToken.VALUE_STRING && "message".equals(f)) message = p.getText();
+            else p.skipChildren();
+        }
+        return message;
+    }
+
+    /** Ghi lại các item dưới dạng một response CSE tối giản (đọc lại được bằng {@link #parse}). */
+    static byte[] write(JsonFactory factory, List<ResultItem> items) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256 + items.size() * 256);
+        try (JsonGenerator g = factory.createGenerator(bos)) {
+            g.writeStartObject();
+            g.writeArrayFieldStart("items");
+            for (ResultItem it : items) {
+                g.writeStartObject();
+                g.writeStringField("title", it.title);
+                g.writeStringField("link", it.link);
+                g.writeStringField("snippet", it.snippet);
+                g.writeStringField("displayLink", it.displayLink);
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+        return bos.toByteArray();
+    }
+
+    static String hostOf(String url) {
+        try { return URI.create(url).getHost(); }
+        catch (Exception e) { return url; }
+    }
+}
@@ -0,0 +1,129 @@
+package com.mycompany.baitaplon;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/** Bảng thời gian theo pha (p50/p90/p99...) cập nhật mỗi giây khi đang hiện; xuất được snapshot JSON. */
+final class DiagnosticsPanel extends JPanel {
+    private static final String[] COLUMNS = {"Pha", "Số lần", "TB (ms)", "p50", "p90", "p99", "p99.9", "max"};
+    private static final SearchMetrics.Phase[] PHASES = SearchMetrics.Phase.values();
+
+    private final SearchMetrics metrics;
+    private final LatencyHistogram.Snapshot[] rows = new LatencyHistogram.Snapshot[PHASES.length];
+    private final Timer refresh = new Timer(1000, e -> refresh());
+
+    private final AbstractTableModel model = new AbstractTableModel() {
+        @Override public int getRowCount() { return PHASES.length; }
+        @Override public int getColumnCount() { return COLUMNS.length; }
+        @Override public String getColumnName(int c) { return COLUMNS[c]; }
+
+        @Override public Object getValueAt(int r, int c) {
+            LatencyHistogram.Snapshot s = rows[r];
+            if (c == 0) return PHASES[r].label;
+            if (s == null || s.count() == 0) return c == 1 ? "0" : "–";
+            return switch (c) {
+                case 1 -> Long.toString(s.count());
+                case 2 -> ms(s.meanMs());
+                case 3 -> ms(s.p50Ms());
+                case 4 -> ms(s.p90Ms());
+                case 5 -> ms(s.p99Ms());
+                case 6 -> ms(s.p999Ms());
+                default -> ms(s.maxMs());
+            };
+        }
+    };
+
+    DiagnosticsPanel(SearchMetrics metrics) {
+        super(new BorderLayout(0, 6));
+        this.metrics = metrics;
+        setOpaque(false);
+        setBorder(new EmptyBorder(0, 0, 8, 0));
+
+        JTable table = new JTable(model);
+        table.setRowHeight(22);
+        table.setFocusable(false);
+        table.setRowSelectionAllowed(false);
+        table.getColumnModel().getColumn(0).setPreferredWidth(220);
+        DefaultTableCellRenderer right = new DefaultTableCellRenderer();
+        right.setHorizontalAlignment(SwingConstants.RIGHT);
+        for (int c = 1; c < COLUMNS.length; c++) table.getColumnModel().getColumn(c).setCellRenderer(right);
+
+        JScrollPane sp = new JScrollPane(table);
+        sp.setPreferredSize(new Dimension(100, table.getRowHeight() * PHASES.length + 28));
+
+        JButton btnExport = new JButton("Xuất snapshot…");
+        JButton btnReset = new JButton("Đặt lại");
+        btnExport.addActionListener(e -> exportSnapshot());
+        btnReset.addActionListener(e -> {
+            metrics.reset();
+            refresh();
+        });
+
+        JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        actions.setOpaque(false);
+        actions.add(btnReset);
+        actions.add(btnExport);
+
+        add(sp, BorderLayout.CENTER);
+        add(actions, BorderLayout.SOUTH);
+    }
+
+    private static String ms(double v) {
+        return String.format(Locale.ROOT, v < 10 ? "%.2f" : "%.1f", v);
+    }
+
+    // Chỉ cập nhật khi bảng đang hiện trên màn hình
+    @Override public void addNotify() {
+        super.addNotify();
+        if (isVisible()) {
+            refresh();
+            refresh.start();
+        }
+    }
+
+    @Override public void removeNotify() {
+        refresh.stop();
+        super.removeNotify();
+    }
+
+    @Override public void setVisible(boolean visible) {
+        super.setVisible(visible);
+        if (visible && isDisplayable()) {
+            refresh();
+            refresh.start();
+        } else {
+            refresh.stop();
+        }
+    }
+
+    private void refresh() {
+        for (int i = 0; i < PHASES.length; i++) rows[i] = metrics.histogram(PHASES[i]).snapshot();
+        model.fireTableRowsUpdated(0, PHASES.length - 1);
+    }
+
+    private void exportSnapshot() {
+        JFileChooser fc = new JFileChooser();
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        fc.setSelectedFile(new File("cse-metrics-" + stamp + ".json"));
+        if (fc.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        Path file = fc.getSelectedFile().toPath();
+        try (OutputStream os = Files.newOutputStream(file)) {
+            metrics.writeSnapshot(os);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Không ghi được file: " + ex.getMessage(),
+                    "Lỗi", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+}
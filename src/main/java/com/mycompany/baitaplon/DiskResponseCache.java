@@ -0,0 +1,333 @@
+package com.mycompany.baitaplon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache response JSON thô trên đĩa, sống qua các lần khởi động lại.
+ *
+ * <p>Dữ liệu nằm trong một file segment chỉ ghi nối (append-only):
+ * {@code [int recLen][long hash][long expiresAt][int keyLen][int valLen][key][value]}.
+ * Index là bảng băm địa chỉ mở được memory-map, mỗi slot 24 byte:
+ * {@code [long hash][long offset][long expiresAt]}. Bản ghi cũ/bị ghi đè chỉ bị dọn khi compact:
+ * khi segment vượt {@code maxBytes} hoặc index quá đầy, các bản ghi còn hạn được chép sang segment mới,
+ * bỏ các bản ghi cũ nhất trước nếu vẫn vượt giới hạn.</p>
+ *
+ * <p>Chỉ một tiến trình (và một đối tượng trong tiến trình đó) được mở một thư mục cache: khoá {@code cache.lock}
+ * được giữ suốt đời đối tượng
+ * (app, BatchSearch, SearchServer và PriceWatcher cùng dùng ~/.googlecse/cache).</p>
+ */
+final class DiskResponseCache implements Closeable {
+
+    private static final int MAGIC = 0x43534531; // "CSE1"
+    private static final int HEADER = 24;        // magic, capacity, count, (pad), segmentLength
+    private static final int SLOT = 24;
+    private static final int REC_HEADER = 4 + 8 + 8 + 4 + 4;
+
+    // Thư mục đang mở trong JVM này; phải chặn trước khi mở cache.lock, vì trên Linux đóng bất kỳ channel nào tới
+    // file cũng nhả mọi khoá của JVM trên file đó
+    private static final Set<Path> OPEN = ConcurrentHashMap.newKeySet();
+
+    private final Path dir;
+    private final Path key;
+    private final Path segPath;
+    private final Path idxPath;
+    private final long maxBytes;
+    private final int capacity;
+
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private FileChannel seg;
+    private FileChannel idxChannel;
+    private MappedByteBuffer idx;
+    private int count;
+
+    DiskResponseCache(Path dir, long maxBytes, int capacity) throws IOException {
+        this.dir = dir;
+        this.segPath = dir.resolve("responses.seg");
+        this.idxPath = dir.resolve("responses.idx");
+        this.maxBytes = maxBytes;
+        this.capacity = Integer.highestOneBit(Math.max(capacity, 64) - 1) << 1; // luỹ thừa của 2
+
+        Files.createDirectories(dir);
+        key = dir.toRealPath();
+        if (!OPEN.add(key)) throw new IOException("thư mục cache đang được dùng: " + dir);
+        try {
+            lockChannel = FileChannel.open(dir.resolve("cache.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (IOException | RuntimeException e) {
+            OPEN.remove(key);
+            throw e;
+        }
+        FileLock l;
+        try {
+            l = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            l = null;
+        }
+        if (l == null) {
+            lockChannel.close();
+            OPEN.remove(key);
+            throw new IOException("thư mục cache đang được tiến trình khác dùng: " + dir);
+        }
+        lock = l;
+
+        try {
+            seg = FileChannel.open(segPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            mapIndex();
+
+            boolean valid = idx.getInt(0) == MAGIC
+                    && idx.getInt(4) == this.capacity
+                    && idx.getLong(16) == seg.size();
+            if (valid) {
+                count = idx.getInt(8);
+            } else {
+                rebuildIndex();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (seg != null) seg.close();
+            if (idxChannel != null) idxChannel.close();
+            lockChannel.close(); // nhả luôn khoá
+            OPEN.remove(key);
+            throw e;
+        }
+    }
+
+    /** Thư mục mặc định: ~/.googlecse/cache */
+    static Path defaultDir() {
+        return Path.of(System.getProperty("user.home"), ".googlecse", "cache");
+    }
+
+    synchronized byte[] get(String key) throws IOException {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        long h = hash(k);
+        int mask = capacity - 1;
+        for (int i = (int) h & mask, n = 0; n < capacity; i = (i + 1) & mask, n++) {
+            int pos = HEADER + i * SLOT;
+            long slotHash = idx.getLong(pos);
+            if (slotHash == 0) return null;
+            if (slotHash != h) continue;
+
+            long off = idx.getLong(pos + 8);
+            ByteBuffer head = readFully(off, REC_HEADER);
+            int keyLen = head.getInt(20);
+            int valLen = head.getInt(24);
+            if (keyLen != k.length) continue;
+
+            ByteBuffer body = readFully(off + REC_HEADER, keyLen + valLen);
+            byte[] storedKey = new byte[keyLen];
+            body.get(storedKey);
+            if (!Arrays.equals(storedKey, k)) continue;
+            if (idx.getLong(pos + 16) <= System.currentTimeMillis()) return null;
+
+            byte[] value = new byte[valLen];
+            body.get(value);
+            return value;
+        }
+        return null;
+    }
+
+    synchronized void put(String key, byte[] value, Duration ttl) throws IOException {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        long h = hash(k);
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+
+        long off = seg.size();
+        ByteBuffer rec = ByteBuffer.allocate(REC_HEADER + k.length + value.length);
+        rec.putInt(rec.capacity()).putLong(h).putLong(expiresAt).putInt(k.length).putInt(value.length);
+        rec.put(k).put(value).flip();
+        while (rec.hasRemaining()) seg.write(rec, off + rec.position());
+
+        insertSlot(h, k, off, expiresAt);
+        idx.putLong(16, seg.size());
+
+        if (seg.size() > maxBytes || count > capacity * 3 / 4) compact();
+    }
+
+    /** Chép các bản ghi còn hạn (mới nhất được ưu tiên) sang segment mới rồi dựng lại index. */
+    synchronized void compact() throws IOException {
+        long now = System.currentTimeMillis();
+        List<long[]> live = new ArrayList<>(); // {offset, recLen}
+        for (int i = 0; i < capacity; i++) {
+            int pos = HEADER + i * SLOT;
+            if (idx.getLong(pos) == 0 || idx.getLong(pos + 16) <= now) continue;
+            long off = idx.getLong(pos + 8);
+            live.add(new long[]{off, readFully(off, 4).getInt(0)});
+        }
+        live.sort(Comparator.comparingLong(a -> a[0]));
+
+        // giữ lại các bản ghi mới nhất sao cho tổng ≤ 3/4 giới hạn, và không quá nửa số slot
+        long budget = maxBytes * 3 / 4;
+        int keepFrom = live.size();
+        long total = 0;
+        while (keepFrom > 0 && keepFrom > live.size() - capacity / 2) {
+            long len = live.get(keepFrom - 1)[1];
+            if (total + len > budget) break;
+            total += len;
+            keepFrom--;
+        }
+
+        Path tmp = dir.resolve("responses.seg.tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int i = keepFrom; i < live.size(); i++) {
+                long[] r = live.get(i);
+                long pos = r[0], end = r[0] + r[1];
+                while (pos < end) pos += seg.transferTo(pos, end - pos, out);
+            }
+        }
+        seg.close(); // Windows không thay được file đang mở
+        try {
+            Files.move(tmp, segPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        } finally {
+            // Đổi tên lỗi thì mở lại segment cũ: index vẫn trỏ đúng vào nó
+            seg = FileChannel.open(segPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        rebuildIndex();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            idx.force();
+            idxChannel.close();
+            seg.close();
+        } finally {
+            lock.release();
+            lockChannel.close();
+            OPEN.remove(key);
+        }
+    }
+
+    // ====== Index ======
+
+    private void mapIndex() throws IOException {
+        idxChannel = FileChannel.open(idxPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        idx = idxChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) capacity * SLOT);
+    }
+
+    /**
+     * Quét lại segment; cắt bỏ bản ghi ghi dở ở cuối (nếu app bị tắt ngang). Mọi bản ghi đều được chèn theo thứ tự
+     * ghi, kể cả bản đã hết hạn, để bản mới hơn của một key che bản cũ (TTL dài hơn) của nó; slot hết hạn bị bỏ sau.
+     */
+    private void rebuildIndex() throws IOException {
+        idx.putInt(0, 0); // tắt ngang lúc đang dựng thì lần mở sau dựng lại
+        clearSlots();
+
+        long now = System.currentTimeMillis();
+        long size = seg.size();
+        long off = 0;
+        while (off + REC_HEADER <= size) {
+            ByteBuffer head = readFully(off, REC_HEADER);
+            int recLen = head.getInt(0);
+            if (recLen < REC_HEADER || off + recLen > size) break;
+
+            if (count >= capacity * 3 / 4) {
+                // Bỏ slot hết hạn giữa chừng vẫn đúng: bản ghi sau của cùng key đều mới hơn
+                dropExpired(now);
+                if (count >= capacity * 3 / 4) break; // nhiều key hơn index chứa được (capacity vừa giảm): bỏ phần sau
+            }
+            byte[] k = new byte[head.getInt(20)];
+            readFully(off + REC_HEADER, k.length).get(k);
+            insertSlot(head.getLong(4), k, off, head.getLong(12));
+            off += recLen;
+        }
+        if (off != size) seg.truncate(off);
+        dropExpired(now);
+
+        idx.putInt(0, MAGIC);
+        idx.putInt(4, capacity);
+        idx.putLong(16, seg.size());
+    }
+
+    private void clearSlots() {
+        for (int i = HEADER; i < HEADER + capacity * SLOT; i += 8) idx.putLong(i, 0L);
+        count = 0;
+        idx.putInt(8, 0);
+    }
+
+    /** Dựng lại bảng chỉ với các slot còn hạn (dò tuyến tính không xoá tại chỗ được). */
+    private void dropExpired(long now) {
+        List<long[]> keep = new ArrayList<>(); // {hash, offset, expiresAt}
+        for (int i = 0; i < capacity; i++) {
+            int pos = HEADER + i * SLOT;
+            long h = idx.getLong(pos);
+            if (h != 0 && idx.getLong(pos + 16) > now) keep.add(new long[]{h, idx.getLong(pos + 8), idx.getLong(pos + 16)});
+        }
+        if (keep.size() == count) return;
+        clearSlots();
+        int mask = capacity - 1;
+        for (long[] e : keep) { // các key khác nhau: chỉ cần tìm slot trống
+            int i = (int) e[0] & mask;
+            while (idx.getLong(HEADER + i * SLOT) != 0) i = (i + 1) & mask;
+            int pos = HEADER + i * SLOT;
+            idx.putLong(pos, e[0]);
+            idx.putLong(pos + 8, e[1]);
+            idx.putLong(pos + 16, e[2]);
+        }
+        count = keep.size();
+        idx.putInt(8, count);
+    }
+
+    private void insertSlot(long h, byte[] k, long off, long expiresAt) throws IOException {
+        int mask = capacity - 1;
+        for (int i = (int) h & mask; ; i = (i + 1) & mask) {
+            int pos = HEADER + i * SLOT;
+            long slotHash = idx.getLong(pos);
+            if (slotHash == 0) {
+                count++;
+                idx.putInt(8, count);
+            } else if (slotHash != h || !keyAt(idx.getLong(pos + 8), k)) {
+                continue;
+            }
+            idx.putLong(pos, h);
+            idx.putLong(pos + 8, off);
+            idx.putLong(pos + 16, expiresAt);
+            return;
+        }
+    }
+
+    private boolean keyAt(long off, byte[] k) throws IOException {
+        if (readFully(off, REC_HEADER).getInt(20) != k.length) return false;
+        byte[] stored = new byte[k.length];
+        readFully(off + REC_HEADER, k.length).get(stored);
+        return Arrays.equals(stored, k);
+    }
+
+    private ByteBuffer readFully(long off, int len) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(len);
+        while (buf.hasRemaining()) {
+            if (seg.read(buf, off + buf.position()) < 0) throw new IOException("Segment bị cắt cụt tại " + off);
+        }
+        return buf.flip();
+    }
+
+    /** FNV-1a 64 bit; 0 dành cho slot trống. */
+    private static long hash(byte[] k) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : k) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        return h == 0 ? 1 : h;
+    }
+}
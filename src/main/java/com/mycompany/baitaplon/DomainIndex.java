@@ -0,0 +1,46 @@
+package com.mycompany.baitaplon;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Chia các dòng kết quả theo domain (displayLink, không phân biệt hoa thường), cập nhật dần khi
+ * kết quả về. Mỗi domain giữ danh sách chỉ số dòng tăng dần nên lọc theo domain không cần duyệt lại.
+ */
+final class DomainIndex {
+
+    private final HashMap<String, IntList> buckets = new HashMap<>();
+    private final List<String> domains = new ArrayList<>(); // thứ tự xuất hiện đầu tiên, giữ nguyên cách viết
+
+    /** Ghi nhận dòng {@code row}; trả về domain nếu đây là lần đầu gặp, ngược lại null. */
+    String add(String displayLink, int row) {
+        String key = key(displayLink);
+        IntList rows = buckets.get(key);
+        boolean isNew = rows == null;
+        if (isNew) {
+            rows = new IntList();
+            buckets.put(key, rows);
+            domains.add(displayLink);
+        }
+        rows.add(row);
+        return isNew ? displayLink : null;
+    }
+
+    /** Các dòng thuộc domain (list sống: tiếp tục dài ra khi có kết quả mới), null nếu chưa gặp. */
+    IntList rows(String displayLink) {
+        return buckets.get(key(displayLink));
+    }
+
+    List<String> domains() { return domains; }
+
+    void clear() {
+        buckets.clear();
+        domains.clear();
+    }
+
+    private static String key(String d) {
+        return d.toLowerCase(Locale.ROOT);
+    }
+}
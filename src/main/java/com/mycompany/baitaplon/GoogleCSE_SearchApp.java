@@ -0,0 +1,1262 @@
+package com.mycompany.baitaplon;
+
+import com.formdev.flatlaf.FlatLightLaf;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.prefs.Preferences;
+
+public class GoogleCSE_SearchApp extends JFrame {
+
+    // ====== Preferences của giao diện (key/cx do CseClient quản lý, cùng node) ======
+    private static final Preferences PREF = CseClient.PREF;
+    private static final String PREF_CONCURRENCY = "GOOGLE_CSE_CONCURRENCY";
+    private static final String PREF_PERSIST_INDEX = "GOOGLE_CSE_PERSIST_INDEX";
+    private static final String PREF_LIVE = "GOOGLE_CSE_LIVE_SEARCH";
+    private static final String PREF_VERIFY_DEADLINE = "GOOGLE_CSE_VERIFY_DEADLINE_S";
+    private static final String PREF_WATCH_INTERVAL = "GOOGLE_CSE_WATCH_INTERVAL_MIN";
+
+    // Tìm khi gõ: chờ người dùng ngừng gõ một lúc và chỉ tìm khi từ khóa 1 đủ dài, để không tốn quota
+    private static final int LIVE_DEBOUNCE_MS = 450;
+    private static final int LIVE_MIN_CHARS = 2;
+
+    // Mở rộng truy vấn: tối đa bấy nhiêu request cho cả lượt (còn bị chặn bởi quota còn lại);
+    // tìm sâu thì mỗi truy vấn con lấy bấy nhiêu trang
+    private static final int EXPAND_MAX_REQUESTS = 20;
+    private static final int EXPAND_DEEP_PAGES = 3;
+
+    // Đo khởi động: -DGOOGLE_CSE_TIMING=true in thời gian ra stderr; -DGOOGLE_CSE_EXIT_AFTER_STARTUP=true thoát ngay
+    // khi cửa sổ hiện và kết nối đã làm nóng (lượt chạy mẫu để tạo archive AppCDS, xem profile appcds trong pom.xml)
+    private static final boolean TIMING = Boolean.getBoolean("GOOGLE_CSE_TIMING");
+    private static final boolean EXIT_AFTER_STARTUP = Boolean.getBoolean("GOOGLE_CSE_EXIT_AFTER_STARTUP");
+
+    // Kiểm tra giá trên trang gốc: tối đa bấy nhiêu kết quả mỗi lần bấm, tính từ dòng đầu màn hình
+    private static final int VERIFY_MAX_ITEMS = 30;
+
+    // Xuất kết quả: mỗi lần lấy bấy nhiêu dòng trên EDT rồi ghi ở thread nền, nên bộ nhớ không theo số kết quả
+    private static final int EXPORT_CHUNK = 1000;
+
+    private int pageConcurrency = PREF.getInt(PREF_CONCURRENCY, 4);
+    private volatile boolean persistIndex = PREF.getBoolean(PREF_PERSIST_INDEX, false);
+    // Chỉ mục trên đĩa đã nạp xong; chưa thì khi thoát không lưu, để không thay file bằng bản dở hoặc trống
+    private volatile boolean indexLoaded;
+    private int verifyDeadlineSec = PREF.getInt(PREF_VERIFY_DEADLINE, 10);
+    private int watchIntervalMin = PREF.getInt(PREF_WATCH_INTERVAL, 360);
+
+    // ====== Search core ======
+    // Dựng ở thread nền trong main (HttpClient, Jackson, cache đĩa), song song với look-and-feel trên EDT
+    private final CseClient client;
+
+    // Chỉ mục mọi kết quả đã gặp để tìm lại offline (không tốn quota)
+    private final ResultIndex index = new ResultIndex();
+
+    // Giá trích từ snippet/title, gom theo domain qua mọi trang của lần tìm hiện tại
+    private final PriceStats priceStats = new PriceStats();
+
+    // Bỏ kết quả trùng link (sau chuẩn hoá) hoặc snippet gần giống giữa các trang
+    private final ResultDeduper deduper = new ResultDeduper();
+    private boolean priceMode;
+
+    // ====== UI Models ======
+    private final DefaultListModel<String> domainModel = new DefaultListModel<>();
+    private final JList<String> domainList = new JList<>(domainModel);
+
+    private final ResultListModel resultModel = new ResultListModel();
+    private final ResultListView resultList = new ResultListView(resultModel, new ResultRenderer(() -> priceMode));
+
+    private final JTextField tfK1 = new JTextField();
+    private final JTextField tfK2 = new JTextField();
+    private final JTextField tfK3 = new JTextField();
+
+    private final JButton btnSearch = new JButton("Tìm kiếm");
+    private final JButton btnPrice  = new JButton("Tìm giá sản phẩm");
+    private final JButton btnSettings = new JButton("⚙");
+    private final JButton btnOffline = new JButton("Tìm trong kết quả đã xem");
+    private final JButton btnVerify = new JButton("Kiểm tra giá trên trang");
+    private final JButton btnWatch = new JButton("Theo dõi giá");
+    private final JButton btnExport = new JButton("Xuất…");
+    private final JCheckBox cbDeep = new JCheckBox("Tìm sâu (tối đa 100 kết quả)");
+    private final JCheckBox cbExpand = new JCheckBox("Mở rộng truy vấn (tổ hợp từ khóa + site:)");
+    private final JCheckBox cbLive = new JCheckBox("Tìm khi gõ (chỉ trang đầu)", PREF.getBoolean(PREF_LIVE, false));
+
+    private final JLabel lbStatus = new JLabel("Sẵn sàng");
+    private final JLabel lbCache = new JLabel();
+    private final JLabel lbPriceStats = new JLabel();
+    private final JProgressBar progress = new JProgressBar();
+
+    // Bảng thời gian theo pha, ẩn mặc định; bật bằng nút ⏱ cạnh thanh trạng thái
+    private final DiagnosticsPanel diagnostics;
+    private final JToggleButton btnDiagnostics = new JToggleButton("⏱");
+
+    // Filter (toàn bộ kết quả nằm trong resultModel, chia sẵn theo domain)
+    private String domainFilter = "Tất cả";
+
+    // Lượt tìm đang chạy. Mỗi lượt mới tăng searchGeneration; trang của lượt cũ còn nằm trong hàng đợi EDT
+    // sẽ bị bỏ qua. Chỉ truy cập trên EDT.
+    private SwingWorker<Void, List<ResultItem>> currentSearch;
+    private int searchGeneration;
+    private String lastQuery = "";
+    private final javax.swing.Timer liveTimer = new javax.swing.Timer(LIVE_DEBOUNCE_MS, e -> runLiveSearch());
+
+    // Cuộn gần cuối danh sách thì tải tiếp trang sau (không tìm sâu); số trang tải trước theo tốc độ cuộn,
+    // độ trễ mạng và quota còn lại
+    private ResultPager pager;
+    private final PrefetchPolicy prefetch = new PrefetchPolicy();
+    // Vị trí thanh cuộn lần trước: thanh cuộn báo cả khi model đổi (trang về, resize), chỉ giá trị tăng mới là cuộn xuống
+    private int lastScrollValue;
+    private final ExecutorService pageExec = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Đọc giá trên trang gốc của kết quả (dùng chung HttpClient với CseClient); lượt đang chạy, chỉ truy cập trên EDT
+    private final LinkPriceFetcher priceFetcher;
+    private SwingWorker<LinkPriceFetcher.Stats, ResultItem> currentVerify;
+
+    // Chạy lại định kỳ các truy vấn giá đã lưu (~/.googlecse/watches.tsv), ghi giá vào ~/.googlecse/prices.ts;
+    // null khi chưa theo dõi truy vấn nào. Chỉ truy cập trên EDT
+    private PriceWatcher watcher;
+    // Bộ theo dõi đã mở (file chuỗi giá chỉ cho một store ghi, nên cả app dùng chung một bộ); khoá bằng watcherLock
+    private final Object watcherLock = new Object();
+    private PriceWatcher openedWatcher;
+
+    // Lượt tìm đầu tiên của phiên đã được đo (SearchMetrics.Phase.FIRST_SEARCH). Chỉ truy cập trên EDT
+    private boolean firstSearchTimed;
+
+    /** Look-and-feel phải được đặt trước ({@link #setupLookAndFeel}) vì các component được dựng ngay khi khởi tạo field. */
+    GoogleCSE_SearchApp(CseClient client) {
+        super("Tìm kiếm tin trên internet");
+        this.client = client;
+        this.diagnostics = new DiagnosticsPanel(client.metrics());
+        this.priceFetcher = new LinkPriceFetcher(client.http(), pageExec);
+
+        setDefaultCloseOperation(EXIT_ON_CLOSE);
+        setMinimumSize(new Dimension(1200, 700));
+        setLocationRelativeTo(null);
+
+        setContentPane(buildUI());
+
+        btnSearch.addActionListener(e -> runSearch(false));
+        btnPrice.addActionListener(e -> runSearch(true));
+        btnSettings.addActionListener(e -> openSettingsDialog(true));
+        btnOffline.addActionListener(e -> runOfflineSearch());
+        btnVerify.addActionListener(e -> verifyPrices());
+        btnWatch.addActionListener(e -> watchCurrentQuery());
+        btnExport.addActionListener(e -> exportResults());
+
+        liveTimer.setRepeats(false);
+        DocumentListener onEdit = new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { keywordsEdited(); }
+            @Override public void removeUpdate(DocumentEvent e) { keywordsEdited(); }
+            @Override public void changedUpdate(DocumentEvent e) { keywordsEdited(); }
+        };
+        for (JTextField tf : List.of(tfK1, tfK2, tfK3)) tf.getDocument().addDocumentListener(onEdit);
+        cbLive.addActionListener(e -> {
+            PREF.putBoolean(PREF_LIVE, cbLive.isSelected());
+            keywordsEdited();
+        });
+
+        domainList.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                String sel = domainList.getSelectedValue();
+                domainFilter = (sel == null) ? "Tất cả" : sel;
+                applyFilter();
+                updatePriceStats();
+            }
+        });
+
+        // double click open link
+        resultList.addMouseListener(new MouseAdapter() {
+            @Override public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    ResultItem it = resultList.getSelectedValue();
+                    if (it != null) openBrowser(it.link);
+                }
+            }
+        });
+
+        // Lượt chạy mẫu AppCDS không nạp chỉ mục/theo dõi giá (nên cũng không lưu chỉ mục khi thoát)
+        if (!EXIT_AFTER_STARTUP) {
+            loadIndexInBackground();
+            startWatcherInBackground();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (!persistIndex || !indexLoaded) return;
+            try { index.save(ResultIndex.defaultFile()); } catch (Exception ignored) {}
+        }));
+    }
+
+    /**
+     * Gọi sau {@code setVisible(true)}: ghi thời gian khởi động (từ lúc tiến trình JVM bắt đầu) khi các sự kiện vẽ
+     * đầu tiên đã được xử lý, làm nóng kết nối cho lượt tìm đầu, rồi mới hỏi key/cx nếu chưa có.
+     */
+    private void whenShown(long mainStartNanos) {
+        SwingUtilities.invokeLater(() -> {
+            long startup = ProcessHandle.current().info().startInstant()
+                    .map(t -> TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - t.toEpochMilli()))
+                    .orElse(System.nanoTime() - mainStartNanos);
+            client.metrics().record(SearchMetrics.Phase.STARTUP, startup);
+            timing("khởi động", startup);
+
+            CompletableFuture<Void> warm = client.prewarm();
+            if (EXIT_AFTER_STARTUP) {
+                warm.completeOnTimeout(null, 10, TimeUnit.SECONDS).thenRun(() -> System.exit(0));
+                return;
+            }
+            // Nếu chưa có key/cx thì bật dialog
+            if (!client.isConfigured()) openSettingsDialog(false);
+        });
+    }
+
+    private static void timing(String what, long nanos) {
+        if (TIMING) System.err.printf(Locale.ROOT, "[timing] %s: %.1f ms%n", what, nanos / 1e6);
+    }
+
+    private void loadIndexInBackground() {
+        if (!persistIndex) return;
+        new SwingWorker<Void, Void>() {
+            @Override protected Void doInBackground() throws Exception {
+                index.loadFrom(ResultIndex.defaultFile());
+                indexLoaded = true;
+                return null;
+            }
+            @Override protected void done() {
+                try {
+                    get();
+                } catch (Exception ex) {
+                    toast("Không nạp được chỉ mục: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /** Có truy vấn theo dõi đã lưu thì mở store và đặt lịch ngay khi mở app. */
+    private void startWatcherInBackground() {
+        new SwingWorker<PriceWatcher, Void>() {
+            @Override protected PriceWatcher doInBackground() throws Exception {
+                List<PriceWatcher.Watch> saved = PriceWatcher.loadWatches(PriceWatcher.defaultWatchFile());
+                return saved.isEmpty() ? null : openWatcher(saved);
+            }
+            @Override protected void done() {
+                try {
+                    PriceWatcher w = get();
+                    if (w == null) return;
+                    watcher = w;
+                    updateCacheStats();
+                } catch (Exception ex) {
+                    toast("Không mở được dữ liệu theo dõi giá: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Chạy ngoài EDT: mở file chuỗi giá (lần đầu) và đặt lịch cho {@code watches}. Lúc khởi động và khi bấm
+     * "Theo dõi giá" có thể gọi cùng lúc; lần gọi sau dùng lại bộ đã mở.
+     */
+    private PriceWatcher openWatcher(List<PriceWatcher.Watch> watches) throws IOException {
+        synchronized (watcherLock) {
+            if (openedWatcher == null) {
+                PriceSeriesStore store = new PriceSeriesStore(PriceSeriesStore.defaultFile());
+                openedWatcher = new PriceWatcher(client, store, Duration.ofMinutes(watchIntervalMin), 1, 2, (watch, r) -> {
+                    // Chỉ báo khi có gì mới, để lượt chạy nền không chiếm thanh trạng thái
+                    if (r.error() != null || r.points() > 0) SwingUtilities.invokeLater(() -> toast(PriceWatcher.describe(watch, r)));
+                });
+            }
+            for (PriceWatcher.Watch x : watches) openedWatcher.add(x);
+            return openedWatcher;
+        }
+    }
+
+    private static void setupLookAndFeel() {
+        FlatLightLaf.setup();
+        UIManager.put("Component.arc", 16);
+        UIManager.put("Button.arc", 16);
+        UIManager.put("TextComponent.arc", 14);
+        UIManager.put("ScrollBar.thumbArc", 999);
+        UIManager.put("ScrollBar.thumbInsets", new Insets(2, 2, 2, 2));
+        UIManager.put("Component.focusWidth", 1);
+        UIManager.put("Button.margin", new Insets(10, 14, 10, 14));
+    }
+
+    private JComponent buildUI() {
+        JPanel root = new JPanel(new BorderLayout());
+        root.setBorder(new EmptyBorder(14, 14, 14, 14));
+        root.setBackground(UIManager.getColor("Panel.background"));
+
+        root.add(buildTopBar(), BorderLayout.NORTH);
+        root.add(buildBody(), BorderLayout.CENTER);
+        root.add(buildStatusBar(), BorderLayout.SOUTH);
+
+        return root;
+    }
+
+    private JComponent buildTopBar() {
+        JPanel top = new GradientHeader();
+        top.setLayout(new BorderLayout(12, 12));
+        top.setBorder(new EmptyBorder(14, 14, 14, 14));
+
+        JLabel title = new JLabel("Tìm kiếm tin trên internet");
+        title.setForeground(Color.WHITE);
+        title.setFont(title.getFont().deriveFont(Font.BOLD, 22f));
+
+        JLabel subtitle = new JLabel("Nhập từ khóa → tìm trên Google Custom Search API");
+        subtitle.setForeground(new Color(255, 255, 255, 210));
+
+        JPanel left = new JPanel();
+        left.setOpaque(false);
+        left.setLayout(new BoxLayout(left, BoxLayout.Y_AXIS));
+        left.add(title);
+        left.add(Box.createVerticalStrut(4));
+        left.add(subtitle);
+
+        btnSettings.setFocusPainted(false);
+        btnSettings.setOpaque(false);
+        btnSettings.setForeground(Color.WHITE);
+        btnSettings.setBorder(BorderFactory.createLineBorder(new Color(255,255,255,120), 1, true));
+        btnSettings.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+
+        JPanel right = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+        right.setOpaque(false);
+        right.add(btnSettings);
+
+        top.add(left, BorderLayout.WEST);
+        top.add(right, BorderLayout.EAST);
+        return top;
+    }
+
+    private JComponent buildBody() {
+        JPanel body = new JPanel(new GridLayout(1, 3, 12, 12));
+        body.setOpaque(false);
+
+        body.add(buildDomainsCard());
+        body.add(buildSearchCard());
+        body.add(buildResultsCard());
+
+        return body;
+    }
+
+    private JComponent buildDomainsCard() {
+        RoundedCard card = new RoundedCard();
+        card.setLayout(new BorderLayout(10, 10));
+
+        JLabel lb = sectionTitle("Danh sách web");
+        card.add(lb, BorderLayout.NORTH);
+
+        domainList.setModel(domainModel);
+        domainList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        domainList.setFixedCellHeight(30);
+        domainList.setBorder(new EmptyBorder(6, 6, 6, 6));
+
+        domainModel.clear();
+        domainModel.addElement("Tất cả");
+        domainList.setSelectedIndex(0);
+
+        JScrollPane sp = new JScrollPane(domainList);
+        sp.setBorder(BorderFactory.createEmptyBorder());
+        card.add(sp, BorderLayout.CENTER);
+
+        JLabel hint = new JLabel("<html><span style='color:#666'>Click domain để lọc kết quả</span></html>");
+        lbPriceStats.setVisible(false);
+
+        JPanel south = new JPanel(new BorderLayout(0, 6));
+        south.setOpaque(false);
+        south.add(lbPriceStats, BorderLayout.NORTH);
+        south.add(hint, BorderLayout.SOUTH);
+        card.add(south, BorderLayout.SOUTH);
+
+        return card;
+    }
+
+    private JComponent buildSearchCard() {
+        RoundedCard card = new RoundedCard();
+        card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
+
+        card.add(sectionTitle("Từ khóa"));
+        card.add(Box.createVerticalStrut(10));
+
+        styleTextField(tfK1, "Từ khóa 1 (bắt buộc)");
+        styleTextField(tfK2, "Từ khóa 2 (tuỳ chọn)");
+        styleTextField(tfK3, "Từ khóa 3 (tuỳ chọn)");
+
+        card.add(tfK1);
+        card.add(Box.createVerticalStrut(10));
+        card.add(tfK2);
+        card.add(Box.createVerticalStrut(10));
+        card.add(tfK3);
+        card.add(Box.createVerticalStrut(14));
+
+        btnSearch.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        btnPrice.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        btnOffline.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+
+        JPanel btns = new JPanel(new GridLayout(3, 1, 0, 10));
+        btns.setOpaque(false);
+        btns.add(btnSearch);
+        btns.add(btnPrice);
+        btns.add(btnOffline);
+
+        card.add(btns);
+        card.add(Box.createVerticalStrut(10));
+
+        cbDeep.setOpaque(false);
+        cbDeep.setAlignmentX(Component.LEFT_ALIGNMENT);
+        card.add(cbDeep);
+
+        cbExpand.setOpaque(false);
+        cbExpand.setAlignmentX(Component.LEFT_ALIGNMENT);
+        cbExpand.setToolTipText("<html>Chạy song song: truy vấn đầy đủ, các tổ hợp từ khóa (luôn giữ từ khóa 1)<br>"
+                + "và site: cho " + QueryExpander.MAX_SITES + " website có nhiều kết quả nhất hiện tại. Tối đa "
+                + EXPAND_MAX_REQUESTS + " request.</html>");
+        card.add(cbExpand);
+
+        cbLive.setOpaque(false);
+        cbLive.setAlignmentX(Component.LEFT_ALIGNMENT);
+        card.add(cbLive);
+        card.add(Box.createVerticalGlue());
+
+        JLabel tip = new JLabel("<html><span style='color:#666'>Mẹo: bấm ⚙ để nhập API Key/CX</span></html>");
+        tip.setAlignmentX(Component.LEFT_ALIGNMENT);
+        card.add(tip);
+
+        return card;
+    }
+
+    private JComponent buildResultsCard() {
+        RoundedCard card = new RoundedCard();
+        card.setLayout(new BorderLayout(10, 10));
+
+        JPanel head = new JPanel(new BorderLayout());
+        head.setOpaque(false);
+
+        JLabel lb = sectionTitle("Kết quả");
+        JLabel hint = new JLabel("<html><span style='color:#666'>Double-click để mở link</span></html>");
+        hint.setHorizontalAlignment(SwingConstants.RIGHT);
+
+        btnVerify.setToolTipText("<html>Mở trang gốc của tối đa " + VERIFY_MAX_ITEMS + " kết quả (từ dòng đầu màn hình)<br>"
+                + "để đọc giá khi snippet bị cắt. Giá đọc được có dấu ✓.</html>");
+        btnVerify.setFocusable(false);
+        btnVerify.setVisible(false);
+        JPanel headRight = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        headRight.setOpaque(false);
+        btnWatch.setToolTipText("<html>Lưu truy vấn giá này và chạy lại mỗi " + watchIntervalMin / 60.0 + " giờ (⚙ Cài đặt).<br>"
+                + "Chỉ kết quả mới hoặc thay đổi được đọc giá; giá được ghi vào ~/.googlecse/prices.ts.</html>");
+        btnWatch.setFocusable(false);
+        btnWatch.setVisible(false);
+        btnExport.setToolTipText("<html>Ghi toàn bộ kết quả hiện có ra CSV hoặc JSONL<br>"
+                + "(thêm .gz vào tên file để nén).</html>");
+        btnExport.setFocusable(false);
+        headRight.add(btnExport);
+        headRight.add(btnWatch);
+        headRight.add(btnVerify);
+        headRight.add(hint);
+
+        head.add(lb, BorderLayout.WEST);
+        head.add(headRight, BorderLayout.EAST);
+
+        resultList.setBorder(new EmptyBorder(6, 6, 6, 6));
+
+        JScrollPane sp = new JScrollPane(resultList);
+        sp.setBorder(BorderFactory.createEmptyBorder());
+        sp.getVerticalScrollBar().addAdjustmentListener(e -> onResultsScrolled(e.getValue()));
+
+        card.add(head, BorderLayout.NORTH);
+        card.add(sp, BorderLayout.CENTER);
+
+        return card;
+    }
+
+    private JComponent buildStatusBar() {
+        JPanel bar = new JPanel(new BorderLayout(10, 0));
+        bar.setBorder(new EmptyBorder(10, 2, 0, 2));
+        bar.setOpaque(false);
+
+        progress.setIndeterminate(false);
+        progress.setVisible(false);
+
+        lbCache.setForeground(new Color(110, 110, 110));
+        updateCacheStats();
+
+        JPanel right = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        right.setOpaque(false);
+        right.add(lbCache);
+        right.add(progress);
+
+        btnDiagnostics.setToolTipText("Thời gian từng pha (kết nối, tải, đọc JSON, cập nhật giao diện)");
+        btnDiagnostics.setFocusable(false);
+        btnDiagnostics.addActionListener(e -> {
+            diagnostics.setVisible(btnDiagnostics.isSelected());
+            revalidate();
+        });
+        diagnostics.setVisible(false);
+
+        JPanel left = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        left.setOpaque(false);
+        left.add(btnDiagnostics);
+        left.add(lbStatus);
+
+        bar.add(diagnostics, BorderLayout.NORTH);
+        bar.add(left, BorderLayout.WEST);
+        bar.add(right, BorderLayout.EAST);
+        return bar;
+    }
+
+    private JLabel sectionTitle(String text) {
+        JLabel lb = new JLabel(text);
+        lb.setFont(lb.getFont().deriveFont(Font.BOLD, 14f));
+        return lb;
+    }
+
+    private void styleTextField(JTextField tf, String placeholder) {
+        tf.setMaximumSize(new Dimension(Integer.MAX_VALUE, 40));
+        tf.putClientProperty("JTextField.placeholderText", placeholder); // FlatLaf supports
+        tf.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(230, 230, 230), 1, true),
+                new EmptyBorder(10, 12, 10, 12)
+        ));
+    }
+
+    // ====== Settings Dialog ======
+    private void openSettingsDialog(boolean allowCancel) {
+        JDialog dlg = new JDialog(this, "Cấu hình Google Custom Search API", true);
+        dlg.setLayout(new BorderLayout(12, 12));
+        dlg.setSize(520, 640);
+        dlg.setLocationRelativeTo(this);
+
+        JPanel content = new JPanel();
+        content.setBorder(new EmptyBorder(14, 14, 14, 14));
+        content.setLayout(new BoxLayout(content, BoxLayout.Y_AXIS));
+
+        JPasswordField tfKey = new JPasswordField(client.apiKey());
+        JTextField tfCx = new JTextField(client.cx());
+
+        tfKey.putClientProperty("JTextField.placeholderText", "API Key (AIza...)");
+        tfCx.putClientProperty("JTextField.placeholderText", "CX (Search engine ID)");
+
+        styleTextField(tfKey, "API Key (AIza...)");
+        styleTextField(tfCx, "CX (Search engine ID)");
+
+        JTextArea taEngines = new JTextArea(client.engineSpec(), 3, 20);
+        taEngines.setLineWrap(false);
+        JScrollPane spEngines = new JScrollPane(taEngines);
+        spEngines.setAlignmentX(Component.LEFT_ALIGNMENT);
+        spEngines.setMaximumSize(new Dimension(Integer.MAX_VALUE, 80));
+        JLabel enginesHint = new JLabel("<html><span style='color:#666'>Mỗi dòng: <i>cx</i>, <i>key cx</i> hoặc <i>key cx endpoint</i>. "
+                + "Nhiều key cùng CX: chia quota và gửi dự phòng khi chậm. CX khác: hỏi song song và trộn kết quả.</span></html>");
+        enginesHint.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        JSpinner spConcurrency = new JSpinner(new SpinnerNumberModel(pageConcurrency, 1, CseClient.MAX_PAGES, 1));
+        spConcurrency.setMaximumSize(new Dimension(Integer.MAX_VALUE, 40));
+        spConcurrency.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        JSpinner spDay = new JSpinner(new SpinnerNumberModel(client.limiter().dailyLimit(), 1, 1_000_000, 100));
+        JSpinner spMinute = new JSpinner(new SpinnerNumberModel(client.limiter().minuteLimit(), 1, 10_000, 10));
+        JPanel quotaRow = new JPanel(new GridLayout(1, 4, 8, 0));
+        quotaRow.setOpaque(false);
+        quotaRow.setMaximumSize(new Dimension(Integer.MAX_VALUE, 40));
+        quotaRow.setAlignmentX(Component.LEFT_ALIGNMENT);
+        quotaRow.add(new JLabel("Quota/ngày/key"));
+        quotaRow.add(spDay);
+        quotaRow.add(new JLabel("Quota/phút"));
+        quotaRow.add(spMinute);
+
+        JSpinner spVerify = new JSpinner(new SpinnerNumberModel(verifyDeadlineSec, 2, 120, 1));
+        JPanel verifyRow = new JPanel(new GridLayout(1, 2, 8, 0));
+        verifyRow.setOpaque(false);
+        verifyRow.setMaximumSize(new Dimension(Integer.MAX_VALUE, 40));
+        verifyRow.setAlignmentX(Component.LEFT_ALIGNMENT);
+        verifyRow.add(new JLabel("Thời hạn kiểm tra giá trên trang (giây)"));
+        verifyRow.add(spVerify);
+
+        JSpinner spWatch = new JSpinner(new SpinnerNumberModel(watchIntervalMin, 5, 7 * 24 * 60, 30));
+        JPanel watchRow = new JPanel(new GridLayout(1, 2, 8, 0));
+        watchRow.setOpaque(false);
+        watchRow.setMaximumSize(new Dimension(Integer.MAX_VALUE, 40));
+        watchRow.setAlignmentX(Component.LEFT_ALIGNMENT);
+        watchRow.add(new JLabel("Chu kỳ theo dõi giá (phút)"));
+        watchRow.add(spWatch);
+
+        JCheckBox cbPersist = new JCheckBox("Lưu chỉ mục kết quả đã xem giữa các lần mở app", persistIndex);
+        cbPersist.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        JLabel note = new JLabel("<html><span style='color:#666'>Key/CX sẽ lưu trên máy (Preferences). Không nên hard-code.</span></html>");
+
+        content.add(sectionTitle("API Key"));
+        content.add(Box.createVerticalStrut(6));
+        content.add(tfKey);
+        content.add(Box.createVerticalStrut(12));
+        content.add(sectionTitle("CX"));
+        content.add(Box.createVerticalStrut(6));
+        content.add(tfCx);
+        content.add(Box.createVerticalStrut(12));
+        content.add(sectionTitle("Engine phụ (không bắt buộc)"));
+        content.add(Box.createVerticalStrut(6));
+        content.add(spEngines);
+        content.add(Box.createVerticalStrut(4));
+        content.add(enginesHint);
+        content.add(Box.createVerticalStrut(12));
+        content.add(sectionTitle("Số trang tải song song (tìm sâu)"));
+        content.add(Box.createVerticalStrut(6));
+        content.add(spConcurrency);
+        content.add(Box.createVerticalStrut(12));
+        content.add(quotaRow);
+        content.add(Box.createVerticalStrut(8));
+        content.add(verifyRow);
+        content.add(Box.createVerticalStrut(8));
+        content.add(watchRow);
+        content.add(Box.createVerticalStrut(8));
+        content.add(cbPersist);
+        content.add(Box.createVerticalStrut(12));
+        content.add(note);
+
+        JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 10));
+        JButton btnSave = new JButton("Lưu");
+        JButton btnCancel = new JButton("Hủy");
+
+        btnSave.addActionListener(e -> {
+            String k = new String(tfKey.getPassword()).trim();
+            String c = tfCx.getText().trim();
+            if (k.isBlank() || c.isBlank()) {
+                JOptionPane.showMessageDialog(dlg, "Bạn phải nhập đủ API Key và CX.", "Thiếu dữ liệu", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            try {
+                client.setEngineSpec(taEngines.getText());
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(dlg, ex.getMessage(), "Engine phụ", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            client.setCredentials(k, c);
+            pageConcurrency = (Integer) spConcurrency.getValue();
+            PREF.putInt(PREF_CONCURRENCY, pageConcurrency);
+            client.setQuotaLimits((Integer) spDay.getValue(), (Integer) spMinute.getValue());
+            verifyDeadlineSec = (Integer) spVerify.getValue();
+            PREF.putInt(PREF_VERIFY_DEADLINE, verifyDeadlineSec);
+            watchIntervalMin = (Integer) spWatch.getValue();
+            PREF.putInt(PREF_WATCH_INTERVAL, watchIntervalMin);
+            if (watcher != null) watcher.setInterval(Duration.ofMinutes(watchIntervalMin));
+            boolean wasPersisting = persistIndex;
+            persistIndex = cbPersist.isSelected();
+            PREF.putBoolean(PREF_PERSIST_INDEX, persistIndex);
+            if (persistIndex && !wasPersisting) loadIndexInBackground();
+            updateCacheStats();
+            dlg.dispose();
+            toast("Đã lưu cấu hình.");
+        });
+
+        btnCancel.addActionListener(e -> {
+            if (!allowCancel && !client.isConfigured()) {
+                JOptionPane.showMessageDialog(dlg, "Bạn cần cấu hình API Key/CX để dùng chức năng tìm kiếm.", "Bắt buộc", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            dlg.dispose();
+        });
+
+        actions.add(btnCancel);
+        actions.add(btnSave);
+
+        dlg.add(content, BorderLayout.CENTER);
+        dlg.add(actions, BorderLayout.SOUTH);
+
+        dlg.setVisible(true);
+    }
+
+private void toast(String msg) {
+    lbStatus.setText(msg);
+    javax.swing.Timer t = new javax.swing.Timer(3000, e -> lbStatus.setText("Sẵn sàng"));
+    t.setRepeats(false);
+    t.start();
+}
+
+
+    // ====== Search ======
+    private void runSearch(boolean priceMode) {
+        if (!client.isConfigured()) {
+            openSettingsDialog(false);
+            return;
+        }
+
+        List<String> keywords = collectKeywords();
+        if (keywords.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Nhập ít nhất Từ khóa 1.", "Thiếu dữ liệu", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        liveTimer.stop();
+        String query = CseClient.buildQuery(keywords, priceMode);
+        if (cbExpand.isSelected()) {
+            List<String> subQueries = QueryExpander.expand(keywords, priceMode, topDomains());
+            startSearch(query, priceMode, cbDeep.isSelected() ? EXPAND_DEEP_PAGES : 1, false, subQueries);
+        } else {
+            startSearch(query, priceMode, cbDeep.isSelected() ? CseClient.MAX_PAGES : 1, false, null);
+        }
+    }
+
+    /** Domain của kết quả hiện tại, nhiều kết quả trước (cho các truy vấn con site:). */
+    private List<String> topDomains() {
+        List<String> domains = new ArrayList<>(resultModel.domains());
+        domains.sort(Comparator.comparingInt(resultModel::domainCount).reversed());
+        return domains;
+    }
+
+    private void keywordsEdited() {
+        if (client.isConfigured()) client.prewarm(); // kết nối làm nóng lúc mở app có thể đã bị đóng vì rảnh
+        if (cbLive.isSelected()) liveTimer.restart();
+    }
+
+    /** Chạy khi người dùng ngừng gõ {@link #LIVE_DEBOUNCE_MS}; dùng chế độ (thường/giá) của lần tìm trước. */
+    private void runLiveSearch() {
+        if (!cbLive.isSelected() || !client.isConfigured()) return;
+
+        List<String> keywords = collectKeywords();
+        if (keywords.isEmpty() || tfK1.getText().trim().length() < LIVE_MIN_CHARS) {
+            if (cancelSearch()) setBusy(false, "Sẵn sàng");
+            lastQuery = "";
+            return;
+        }
+
+        String query = CseClient.buildQuery(keywords, priceMode);
+        if (CseClient.normalizeQuery(query).equals(lastQuery)) return; // chỉ đổi khoảng trắng/hoa thường
+        startSearch(query, priceMode, 1, true, null);
+    }
+
+    /**
+     * Huỷ lượt tìm đang chạy (ngắt worker, kéo theo huỷ các request HTTP chưa xong).
+     * @return true nếu có lượt đang chạy
+     */
+    private boolean cancelSearch() {
+        searchGeneration++;
+        if (currentVerify != null) {
+            currentVerify.cancel(true);
+            currentVerify = null;
+            btnVerify.setEnabled(true);
+        }
+        if (pager != null) {
+            pager.cancel();
+            pager = null;
+        }
+        if (currentSearch == null) return false;
+        boolean running = !currentSearch.isDone();
+        currentSearch.cancel(true);
+        currentSearch = null;
+        return running;
+    }
+
+    /**
+     * @param pages      số trang (của mỗi truy vấn con nếu mở rộng)
+     * @param subQueries null = chỉ tìm {@code query}; ngược lại chạy song song các truy vấn con này
+     *                   ({@link QueryExpander}) và gộp kết quả vào cùng danh sách
+     */
+    private void startSearch(String query, boolean priceMode, int pages, boolean live, List<String> subQueries) {
+        cancelSearch();
+        int generation = searchGeneration;
+        lastQuery = CseClient.normalizeQuery(query);
+        this.priceMode = priceMode;
+
+        String label = subQueries == null ? query : query + " (+" + (subQueries.size() - 1) + " truy vấn con)";
+        setBusy(true, "Đang tìm: " + label);
+
+        resultModel.clear();
+        priceStats.clear();
+        deduper.clear();
+        buildDomainsFromResults();
+        domainFilter = "Tất cả";
+        domainList.setSelectedIndex(0);
+        resultModel.setFilter(null);
+        resultModel.setEmptyItem(null); // chưa hiện "không có kết quả" khi trang đầu chưa về
+
+        SearchMetrics metrics = client.metrics();
+        long searchStart = System.nanoTime();
+
+        // Mỗi trang về tới đâu thì đẩy lên resultModel tới đó (publish/process chạy trên EDT)
+        SwingWorker<Void, List<ResultItem>> worker = new SwingWorker<>() {
+            private int failedPages;
+
+            @Override protected Void doInBackground() throws Exception {
+                if (subQueries == null) {
+                    client.searchPages(query, pages, pageConcurrency, this::publish);
+                } else {
+                    // Một hàng đợi chung cho mọi truy vấn con: pageConcurrency request cùng lúc, không quá ngân sách
+                    int budget = Math.max(1, Math.min(EXPAND_MAX_REQUESTS, client.quotaLeft()));
+                    failedPages = client.searchExpanded(subQueries, pages, pageConcurrency, budget,
+                            (q, page) -> publish(page));
+                }
+                return null;
+            }
+
+            @Override protected void process(List<List<ResultItem>> chunks) {
+                if (generation != searchGeneration) return; // lượt cũ, đã có lượt mới thay
+                SearchMetrics.UiEvent event = new SearchMetrics.UiEvent();
+                event.begin();
+                long t0 = System.nanoTime();
+                for (List<ResultItem> page : chunks) appendResults(page);
+                timeFirstSearch(metrics, searchStart);
+                updatePriceStats();
+                lbStatus.setText("Đang tìm: " + label + " — đã có " + resultModel.total() + " kết quả");
+                updateCacheStats();
+                metrics.record(SearchMetrics.Phase.UI_PROCESS, System.nanoTime() - t0);
+                event.phase = "process";
+                event.results = resultModel.total();
+                event.commit();
+            }
+
+            @Override protected void done() {
+                if (generation != searchGeneration) return;
+                currentSearch = null;
+                SearchMetrics.UiEvent event = new SearchMetrics.UiEvent();
+                event.begin();
+                long t0 = System.nanoTime();
+                try {
+                    finish();
+                } finally {
+                    long now = System.nanoTime();
+                    metrics.record(SearchMetrics.Phase.UI_DONE, now - t0);
+                    metrics.record(SearchMetrics.Phase.SEARCH, now - searchStart);
+                    event.phase = "done";
+                    event.results = resultModel.total();
+                    event.commit();
+                }
+            }
+
+            private void finish() {
+                timeFirstSearch(metrics, searchStart); // lượt đầu không có kết quả hoặc lỗi
+                try {
+                    get();
+                    updateCacheStats();
+                    resultModel.setEmptyItem(emptyItem());
+                    int dup = deduper.dropped();
+                    setBusy(false, "Xong. Tổng: " + resultModel.total() + " kết quả"
+                            + (subQueries != null ? " từ " + subQueries.size() + " truy vấn" : "")
+                            + (dup > 0 ? " (bỏ " + dup + " trùng)" : "")
+                            + (failedPages > 0 ? " — " + failedPages + " trang lỗi" : ""));
+                    if (subQueries == null && pages < CseClient.MAX_PAGES && resultModel.total() > 0) {
+                        startPaging(query, 1 + pages * CseClient.PAGE_SIZE);
+                    }
+                } catch (Exception ex) {
+                    updateCacheStats();
+                    resultModel.setEmptyItem(emptyItem());
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    if (live) {
+                        // Đang gõ: không bật hộp thoại làm mất focus ô nhập
+                        setBusy(false, "Lỗi: " + cause.getMessage());
+                        return;
+                    }
+                    setBusy(false, "Có lỗi");
+                    JOptionPane.showMessageDialog(GoogleCSE_SearchApp.this,
+                            "Lỗi: " + cause.getMessage(),
+                            "API Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+
+        currentSearch = worker;
+        worker.execute();
+    }
+
+    private void startPaging(String query, int firstStart) {
+        prefetch.reset();
+        pager = new ResultPager(client, pageExec, query, firstStart, new ResultPager.Listener() {
+            @Override public void onPage(List<ResultItem> page) {
+                appendResults(page);
+                updatePriceStats();
+                updateCacheStats();
+                lbStatus.setText("Đã có " + resultModel.total() + " kết quả");
+            }
+
+            @Override public void onError(Exception e) {
+                updateCacheStats();
+                lbStatus.setText("Không tải được trang tiếp: " + e.getMessage());
+            }
+
+            @Override public void onEnd() {
+                lbStatus.setText("Hết kết quả. Tổng: " + resultModel.total() + " kết quả");
+            }
+        });
+    }
+
+    /** Chỉ tải thêm khi người dùng thực sự cuộn: ai chỉ xem màn hình đầu sẽ không tốn thêm quota. */
+    private void onResultsScrolled(int value) {
+        int delta = value - lastScrollValue;
+        lastScrollValue = value;
+        if (delta == 0) return; // trang mới về, revalidate hoặc resize: không phải người dùng cuộn
+        int first = resultList.getFirstVisibleIndex();
+        int last = resultList.getLastVisibleIndex();
+        if (first < 0) return;
+        prefetch.onScroll(first, System.nanoTime());
+        if (delta < 0 || pager == null || pager.ended()) return;
+
+        LatencyHistogram fetch = client.metrics().histogram(SearchMetrics.Phase.FETCH);
+        double latencyMs = fetch.count() > 0 ? fetch.percentileMicros(0.90) / 1000.0 : 1000;
+        int quotaLeft = client.quotaLeft();
+
+        int rowsBelow = resultModel.getSize() - 1 - last;
+        int want = prefetch.pagesAhead(rowsBelow, last - first + 1, latencyMs, quotaLeft);
+        if (want > 0) pager.fetchAhead(want);
+    }
+
+    /**
+     * Mở trang gốc của các kết quả đang hiện (từ dòng đầu màn hình, tối đa {@link #VERIFY_MAX_ITEMS}) để đọc giá
+     * mà snippet không có; giá về tới đâu ghi vào model và vẽ lại tới đó. Kết quả đã kiểm tra trong danh sách
+     * hiện tại không tải lại.
+     */
+    private void verifyPrices() {
+        List<ResultItem> items = new ArrayList<>();
+        // Item chỉ là bản dựng tạm của một dòng (ResultStore): nhớ dòng để ghi giá ngược vào model
+        Map<ResultItem, Integer> rows = new IdentityHashMap<>();
+        for (int i = Math.max(0, resultList.getFirstVisibleIndex()); i < resultModel.getSize() && items.size() < VERIFY_MAX_ITEMS; i++) {
+            int row = resultModel.rowOf(i);
+            if (row < 0) continue;
+            ResultItem it = resultModel.getElementAt(i);
+            items.add(it);
+            rows.put(it, row);
+        }
+        if (items.isEmpty()) return;
+
+        int generation = searchGeneration;
+        Duration deadline = Duration.ofSeconds(verifyDeadlineSec);
+        btnVerify.setEnabled(false);
+        lbStatus.setText("Đang kiểm tra giá trên " + items.size() + " trang...");
+
+        SwingWorker<LinkPriceFetcher.Stats, ResultItem> worker = new SwingWorker<>() {
+            @Override protected LinkPriceFetcher.Stats doInBackground() throws Exception {
+                return priceFetcher.verify(items, deadline, this::publish);
+            }
+
+            @Override protected void process(List<ResultItem> checked) {
+                if (generation != searchGeneration) return;
+                for (ResultItem it : checked) resultModel.setVerifiedPrice(rows.get(it), it.verifiedPrice);
+                resultList.repaint();
+            }
+
+            @Override protected void done() {
+                if (generation != searchGeneration) return; // đã bị lượt tìm mới huỷ
+                currentVerify = null;
+                btnVerify.setEnabled(true);
+                resultList.repaint();
+                try {
+                    LinkPriceFetcher.Stats s = get();
+                    lbStatus.setText("Giá trên trang: " + s.found() + "/" + s.checked() + " trang có giá"
+                            + (s.failed() > 0 ? ", " + s.failed() + " lỗi" : "")
+                            + (s.timedOut() > 0 ? ", " + s.timedOut() + " quá " + verifyDeadlineSec + " s" : "")
+                            + " (" + (s.bytes() / 1024) + " KB)");
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    lbStatus.setText("Không kiểm tra được giá: " + cause.getMessage());
+                }
+            }
+        };
+        currentVerify = worker;
+        worker.execute();
+    }
+
+    /** Thêm truy vấn giá hiện tại vào danh sách theo dõi (lưu file và đặt lịch); lượt đầu chạy trong chu kỳ đầu. */
+    private void watchCurrentQuery() {
+        List<String> keywords = collectKeywords();
+        if (keywords.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Nhập ít nhất Từ khóa 1.", "Thiếu dữ liệu", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        PriceWatcher.Watch w = new PriceWatcher.Watch(keywords);
+        PriceWatcher existing = watcher;
+        btnWatch.setEnabled(false);
+
+        new SwingWorker<PriceWatcher, Void>() {
+            private boolean added;
+
+            @Override protected PriceWatcher doInBackground() throws Exception {
+                Path file = PriceWatcher.defaultWatchFile();
+                PriceWatcher pw = existing != null ? existing : openWatcher(PriceWatcher.loadWatches(file));
+                added = pw.add(w);
+                if (added) PriceWatcher.appendWatch(file, w);
+                return pw;
+            }
+
+            @Override protected void done() {
+                btnWatch.setEnabled(true);
+                try {
+                    watcher = get();
+                    updateCacheStats();
+                    toast(added ? "Đã theo dõi: " + w.query() + " — chu kỳ " + watcher.effectiveInterval().toMinutes() + " phút"
+                            : "Truy vấn này đã được theo dõi");
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    toast("Không thêm được theo dõi: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Xuất toàn bộ kết quả hiện có (không theo bộ lọc domain) ra file. Dòng được lấy từng khối trên EDT và ghi ở
+     * thread nền; trang tải thêm trong lúc xuất không được ghi, còn nếu danh sách bị thay (lượt tìm mới) thì dừng
+     * và bỏ file tạm. File đích chỉ bị thay khi ghi xong (hỏi trước nếu đã có).
+     */
+    private void exportResults() {
+        int total = resultModel.total();
+        if (total == 0) {
+            toast("Chưa có kết quả để xuất");
+            return;
+        }
+        JFileChooser fc = new JFileChooser();
+        fc.setDialogTitle("Xuất kết quả");
+        fc.addChoosableFileFilter(new FileNameExtensionFilter("CSV (.csv, .csv.gz)", "csv", "gz"));
+        fc.addChoosableFileFilter(new FileNameExtensionFilter("JSON Lines (.jsonl, .jsonl.gz)", "jsonl", "gz"));
+        fc.setSelectedFile(new File("ket-qua.csv"));
+        if (fc.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path file = fc.getSelectedFile().toPath();
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (!name.matches(".*\\.(csv|jsonl|json)(\\.gz)?")) file = file.resolveSibling(file.getFileName() + ".csv");
+        if (Files.exists(file) && JOptionPane.showConfirmDialog(this, "File " + file.getFileName() + " đã có. Ghi đè?",
+                "Xuất kết quả", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) != JOptionPane.YES_OPTION) return;
+        Path target = file;
+
+        int generation = resultModel.generation();
+        ResultExporter.Source src = new ResultExporter.Source(0, lastQuery, priceMode);
+        btnExport.setEnabled(false);
+        lbStatus.setText("Đang xuất " + total + " kết quả...");
+        progress.setVisible(true);
+        progress.setIndeterminate(false);
+        progress.setValue(0);
+
+        SwingWorker<Long, Void> worker = new SwingWorker<>() {
+            @Override protected Long doInBackground() throws Exception {
+                // Ghi ra file tạm, xong mới thay file đích: lỗi giữa chừng không làm mất file cũ
+                try (ResultExporter out = ResultExporter.openReplacing(target)) {
+                    List<ResultItem> chunk = new ArrayList<>(EXPORT_CHUNK);
+                    boolean[] replaced = {false};
+                    for (int from = 0; from < total; from += EXPORT_CHUNK) {
+                        int to = Math.min(total, from + EXPORT_CHUNK), start = from;
+                        chunk.clear();
+                        // ResultStore chỉ được đọc trên EDT
+                        SwingUtilities.invokeAndWait(() -> {
+                            replaced[0] = resultModel.generation() != generation;
+                            if (!replaced[0]) for (int r = start; r < to; r++) chunk.add(resultModel.row(r));
+                        });
+                        if (replaced[0]) throw new IOException("danh sách kết quả đã thay đổi (lượt tìm mới)");
+                        out.write(src, chunk);
+                        setProgress((int) (100L * to / total));
+                    }
+                    long rows = out.rows();
+                    out.commit();
+                    return rows;
+                }
+            }
+
+            @Override protected void done() {
+                btnExport.setEnabled(true);
+                progress.setVisible(currentSearch != null);
+                progress.setIndeterminate(currentSearch != null);
+                try {
+                    toast("Đã xuất " + get() + " kết quả → " + target.getFileName());
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    toast("Không xuất được: " + cause.getMessage());
+                }
+            }
+        };
+        worker.addPropertyChangeListener(e -> {
+            // Lượt tìm đang chạy dùng thanh ở chế độ chạy liên tục; không đè lên
+            if ("progress".equals(e.getPropertyName()) && currentSearch == null) {
+                progress.setVisible(true);
+                progress.setIndeterminate(false);
+                progress.setValue((Integer) e.getNewValue());
+            }
+        });
+        worker.execute();
+    }
+
+    /** Tìm trong chỉ mục cục bộ các kết quả đã gặp trong phiên (và các phiên trước nếu có lưu). */
+    private void runOfflineSearch() {
+        List<String> keywords = collectKeywords();
+        if (keywords.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Nhập ít nhất Từ khóa 1.", "Thiếu dữ liệu", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        liveTimer.stop();
+        cancelSearch();
+        lastQuery = "";
+
+        long t0 = System.nanoTime();
+        List<ResultItem> found = index.search(String.join(" ", keywords), 1000);
+        long us = (System.nanoTime() - t0) / 1000;
+
+        resultModel.setResults(found);
+        priceStats.clear();
+        for (ResultItem it : found) priceStats.add(it);
+        buildDomainsFromResults();
+        domainFilter = "Tất cả";
+        domainList.setSelectedIndex(0);
+        applyFilter();
+        updatePriceStats();
+        setBusy(false, String.format(Locale.ROOT, "Offline: %d/%d kết quả (%.2f ms)", found.size(), index.size(), us / 1000.0));
+    }
+
+    // Các nút vẫn bấm được khi đang tìm: lượt mới sẽ huỷ lượt cũ
+    private void setBusy(boolean busy, String status) {
+        progress.setVisible(busy);
+        progress.setIndeterminate(busy);
+        lbStatus.setText(status);
+    }
+
+    private void updateCacheStats() {
+        lbCache.setText("Cache: " + client.cacheHits() + " hit / " + client.cacheMisses() + " miss"
+                + (client.cacheCoalesced() > 0 ? " / " + client.cacheCoalesced() + " gộp" : "")
+                + "  ·  Quota: " + client.quotaUsedCached() + "/" + client.quotaLimit()
+                + (client.hedges() > 0 ? "  ·  Dự phòng: " + client.hedgeWins() + "/" + client.hedges() + " về trước" : "")
+                + (watcher != null ? "  ·  Theo dõi giá: " + watcher.size() : ""));
+    }
+
+    /** Lượt tìm đầu tiên của phiên: thời gian từ lúc bấm tới khi trang đầu hiện (gồm cả kết nối nếu chưa làm nóng). */
+    private void timeFirstSearch(SearchMetrics metrics, long searchStart) {
+        if (firstSearchTimed) return;
+        firstSearchTimed = true;
+        long nanos = System.nanoTime() - searchStart;
+        metrics.record(SearchMetrics.Phase.FIRST_SEARCH, nanos);
+        timing("lượt tìm đầu", nanos);
+    }
+
+    /** Thêm một trang kết quả vào danh sách hiện tại mà không dựng lại toàn bộ. */
+    private void appendResults(List<ResultItem> page) {
+        page = deduper.filter(page);
+        for (ResultItem it : page) {
+            index.add(it);
+            priceStats.add(it);
+        }
+        for (String d : resultModel.append(page)) domainModel.addElement(d);
+    }
+
+    private void buildDomainsFromResults() {
+        List<String> domains = new ArrayList<>(resultModel.domains().size() + 1);
+        domains.add("Tất cả");
+        domains.addAll(resultModel.domains());
+
+        domainModel.clear();
+        domainModel.addAll(domains);
+    }
+
+    /** Đổi view của resultModel sang domain đang chọn (một event duy nhất, không duyệt lại kết quả). */
+    private void applyFilter() {
+        resultList.clearSelection();
+        resultModel.setFilter("Tất cả".equals(domainFilter) ? null : domainFilter);
+        resultModel.setEmptyItem(emptyItem());
+    }
+
+    /** Giá min · trung vị · max của domain đang chọn (chỉ hiện ở chế độ tìm giá). */
+    private void updatePriceStats() {
+        lbPriceStats.setVisible(priceMode);
+        btnVerify.setVisible(priceMode);
+        btnWatch.setVisible(priceMode);
+        if (!priceMode) return;
+        PriceStats.Summary sum = priceStats.summary("Tất cả".equals(domainFilter) ? null : domainFilter);
+        lbPriceStats.setText("<html><b>Giá</b> <span style='color:#666'>(min · trung vị · max)</span><br>" + sum + "</html>");
+    }
+
+    private ResultItem emptyItem() {
+        return new ResultItem("Không có kết quả theo bộ lọc", "", "Hãy chọn “Tất cả” hoặc tìm lại.", domainFilter);
+    }
+
+    private List<String> collectKeywords() {
+        List<String> ks = new ArrayList<>();
+        addIfNotBlank(ks, tfK1.getText());
+        addIfNotBlank(ks, tfK2.getText());
+        addIfNotBlank(ks, tfK3.getText());
+        return ks;
+    }
+
+    private void addIfNotBlank(List<String> list, String s) {
+        if (s == null) return;
+        s = s.trim();
+        if (!s.isEmpty()) list.add(s);
+    }
+
+    private void openBrowser(String url) {
+        if (url == null || url.isBlank()) return;
+        try {
+            if (Desktop.isDesktopSupported()) Desktop.getDesktop().browse(URI.create(url));
+        } catch (Exception ignored) {}
+    }
+
+    // ====== Pretty panels ======
+    private static class RoundedCard extends JPanel {
+        RoundedCard() {
+            setOpaque(false);
+            setBorder(new EmptyBorder(14, 14, 14, 14));
+        }
+        @Override protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+            int arc = 20;
+            int w = getWidth();
+            int h = getHeight();
+
+            // shadow
+            g2.setColor(new Color(0, 0, 0, 18));
+            g2.fillRoundRect(2, 4, w - 4, h - 6, arc, arc);
+
+            // card
+            g2.setColor(Color.WHITE);
+            g2.fillRoundRect(0, 0, w - 4, h - 6, arc, arc);
+
+            g2.dispose();
+            super.paintComponent(g);
+        }
+    }
+
+ private static class GradientHeader extends JPanel {
+    GradientHeader() {
+        setOpaque(false); 
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g); 
+
+        Graphics2D g2 = (Graphics2D) g.create();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        int w = getWidth(), h = getHeight();
+        Color c1 = new Color(12, 74, 110);
+        Color c2 = new Color(2, 132, 199);
+
+        GradientPaint gp = new GradientPaint(0, 0, c1, w, h, c2);
+        g2.setPaint(gp);
+        g2.fillRoundRect(0, 0, w, h, 22, 22);
+
+        g2.dispose();
+    }
+}
+
+    public static void main(String[] args) {
+        long t0 = System.nanoTime();
+        if (EXIT_AFTER_STARTUP && GraphicsEnvironment.isHeadless()) {
+            // "mvn -Pappcds package" trên máy không có màn hình: không làm hỏng cả lượt build
+            System.err.println("Không có màn hình: bỏ qua lượt chạy mẫu AppCDS");
+            return;
+        }
+        // Preferences, HttpClient, Jackson và cache đĩa không cần EDT: dựng song song với look-and-feel
+        CompletableFuture<CseClient> client = CompletableFuture.supplyAsync(CseClient::new);
+        SwingUtilities.invokeLater(() -> {
+            setupLookAndFeel();
+            GoogleCSE_SearchApp app = new GoogleCSE_SearchApp(client.join());
+            app.setVisible(true);
+            app.whenShown(t0);
+        });
+    }
+}
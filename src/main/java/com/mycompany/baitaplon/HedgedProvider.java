@@ -0,0 +1,194 @@
+package com.mycompany.baitaplon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Nhiều nguồn cùng nội dung (cùng CX, khác API key): gửi tới nguồn còn nhiều quota nhất; nếu quá p95 thời gian
+ * của nguồn đó mà chưa xong thì gửi thêm một request dự phòng tới nguồn kế tiếp, lấy kết quả về trước và huỷ
+ * request kia. Nguồn lỗi (hết quota, 403, 429 đã thử lại...) thì chuyển ngay sang nguồn kế tiếp.
+ *
+ * <p>Request dự phòng vì chậm bị giới hạn ~{@value #HEDGE_BUDGET_PERCENT}% số lượt gọi, để khi cả nhóm cùng
+ * chậm thì không nhân đôi tải và quota; chuyển nguồn vì lỗi được đếm riêng, không tính vào giới hạn này. Nguồn vừa
+ * lỗi thì {@value #FAIL_COOLDOWN_SECONDS} giây sau mới được chọn làm chính lại (trừ khi mọi nguồn đều vừa lỗi).</p>
+ */
+final class HedgedProvider implements SearchProvider {
+    static final double HEDGE_PERCENTILE = 0.95;
+    private static final int HEDGE_BUDGET_PERCENT = 10;
+    private static final int HEDGE_BURST = 3;
+    private static final int MIN_SAMPLES = 20;      // ít mẫu hơn thì dùng ngưỡng mặc định
+    private static final long DEFAULT_HEDGE_MICROS = 1_000_000;
+    private static final long MIN_HEDGE_MICROS = 20_000;
+    private static final int FAIL_COOLDOWN_SECONDS = 30;
+
+    private final List<SearchProvider> members;
+    private final LatencyHistogram[] latency;
+    private final ExecutorService exec;
+    private final AtomicLongArray retryAt;          // System.nanoTime() mà nguồn được làm chính lại sau khi lỗi
+
+    private final AtomicInteger rotation = new AtomicInteger();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+
+    HedgedProvider(List<? extends SearchProvider> members, ExecutorService exec) {
+        if (members.isEmpty()) throw new IllegalArgumentException("Cần ít nhất một nguồn");
+        this.members = List.copyOf(members);
+        this.exec = exec;
+        this.latency = new LatencyHistogram[this.members.size()];
+        for (int i = 0; i < latency.length; i++) latency[i] = new LatencyHistogram();
+        this.retryAt = new AtomicLongArray(this.members.size());
+        long now = System.nanoTime();
+        for (int i = 0; i < retryAt.length(); i++) retryAt.set(i, now);
+    }
+
+    @Override public String name() { return members.get(0).name(); }
+
+    @Override public int quotaLeft() {
+        long sum = 0;
+        for (SearchProvider p : members) sum += p.quotaLeft();
+        return (int) Math.min(sum, Integer.MAX_VALUE);
+    }
+
+    List<SearchProvider> members() { return members; }
+
+    /** Số request dự phòng đã gửi vì chậm, và số lần request dự phòng đó về trước. */
+    long hedges() { return hedges.sum(); }
+    long hedgeWins() { return hedgeWins.sum(); }
+
+    /** Số lần chuyển sang nguồn kế tiếp vì nguồn trước lỗi. */
+    long failovers() { return failovers.sum(); }
+
+    /** Ngưỡng (µs) để gửi dự phòng khi nguồn {@code i} làm chính. */
+    long hedgeDelayMicros(int i) {
+        LatencyHistogram h = latency[i];
+        if (h.count() < MIN_SAMPLES) return DEFAULT_HEDGE_MICROS;
+        return Math.max(h.percentileMicros(HEDGE_PERCENTILE), MIN_HEDGE_MICROS);
+    }
+
+    @Override
+    public List<ResultItem> fetch(String query, int num, int start) throws Exception {
+        calls.increment();
+        int n = members.size();
+        int primary = pickPrimary();
+        if (n == 1) return timed(0, query, num, start);
+
+        CompletionService<List<ResultItem>> done = new ExecutorCompletionService<>(exec);
+        Future<?>[] running = new Future<?>[n];
+        long[] startedAt = new long[n];
+        boolean[] slowHedge = new boolean[n];
+        int sent = 0, finished = 0;
+        Exception first = null;
+        try {
+            running[primary] = done.submit(() -> timed(primary, query, num, start));
+            startedAt[primary] = System.nanoTime();
+            sent++;
+            boolean hedgeAllowed = true;
+
+            while (finished < sent) {
+                Future<List<ResultItem>> f;
+                if (sent < n && hedgeAllowed) {
+                    f = done.poll(hedgeDelayMicros(primary), TimeUnit.MICROSECONDS);
+                    if (f == null) {
+                        // Chính còn chậm: chỉ gửi dự phòng nếu còn ngân sách
+                        hedgeAllowed = false;
+                        if (withinBudget()) {
+                            int i = hedge(done, running, startedAt, primary, query, num, start);
+                            if (i >= 0) {
+                                slowHedge[i] = true;
+                                hedges.increment();
+                                sent++;
+                            }
+                        }
+                        continue;
+                    }
+                } else {
+                    f = done.take();
+                }
+                finished++;
+                try {
+                    List<ResultItem> out = f.get();
+                    if (slowHedge[indexOf(running, f)]) hedgeWins.increment();
+                    return out;
+                } catch (ExecutionException ex) {
+                    if (first == null) first = ex.getCause() instanceof Exception e ? e : ex;
+                    retryAt.set(indexOf(running, f), System.nanoTime() + TimeUnit.SECONDS.toNanos(FAIL_COOLDOWN_SECONDS));
+                    // Lỗi thì chuyển sang nguồn kế tiếp ngay, không tính vào ngân sách
+                    if (sent < n && hedge(done, running, startedAt, primary, query, num, start) >= 0) {
+                        failovers.increment();
+                        sent++;
+                    }
+                }
+            }
+            throw first;
+        } finally {
+            long now = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                if (running[i] == null || running[i].isDone()) continue;
+                running[i].cancel(true);
+                // Request bị huỷ ít nhất cũng đã mất chừng này; bỏ qua thì p95 sẽ thấp dần và hedge nhiều dần
+                latency[i].recordNanos(now - startedAt[i]);
+            }
+        }
+    }
+
+    /** Gửi tới nguồn kế tiếp (sau {@code primary}) chưa được gửi; trả về chỉ số nguồn đó, {@code -1} nếu hết nguồn. */
+    private int hedge(CompletionService<List<ResultItem>> done, Future<?>[] running, long[] startedAt,
+                      int primary, String query, int num, int start) {
+        int n = members.size();
+        for (int k = 1; k < n; k++) {
+            int i = (primary + k) % n;
+            if (running[i] != null) continue;
+            running[i] = done.submit(() -> timed(i, query, num, start));
+            startedAt[i] = System.nanoTime();
+            return i;
+        }
+        return -1;
+    }
+
+    private static int indexOf(Future<?>[] running, Future<?> f) {
+        for (int i = 0; ; i++) if (running[i] == f) return i;
+    }
+
+    private boolean withinBudget() {
+        return hedges.sum() * 100 < calls.sum() * HEDGE_BUDGET_PERCENT + HEDGE_BURST * 100L;
+    }
+
+    private List<ResultItem> timed(int i, String query, int num, int start) throws Exception {
+        long t0 = System.nanoTime();
+        List<ResultItem> out = members.get(i).fetch(query, num, start);
+        latency[i].recordNanos(System.nanoTime() - t0);
+        return out;
+    }
+
+    /** Nguồn còn nhiều quota nhất trong các nguồn không vừa lỗi; bằng nhau thì xoay vòng để chia đều. */
+    private int pickPrimary() {
+        int n = members.size();
+        int from = Math.floorMod(rotation.getAndIncrement(), n);
+        long now = System.nanoTime();
+        int best = from, bestLeft = Integer.MIN_VALUE;
+        boolean bestCooling = true;
+        for (int k = 0; k < n; k++) {
+            int i = (from + k) % n;
+            boolean cooling = retryAt.get(i) - now > 0;
+            int left = members.get(i).quotaLeft();
+            // Nguồn không vừa lỗi luôn hơn nguồn vừa lỗi; cùng loại thì so quota
+            if (bestCooling && !cooling || cooling == bestCooling && left > bestLeft) {
+                best = i;
+                bestLeft = left;
+                bestCooling = cooling;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,29 @@
+package com.mycompany.baitaplon;
+
+import java.util.Arrays;
+
+/** Mảng int tự giãn, tránh boxing của List&lt;Integer&gt;. Không thread-safe. */
+final class IntList {
+    int[] a;
+    int size;
+
+    IntList() { this(4); }
+
+    IntList(int capacity) { a = new int[Math.max(capacity, 1)]; }
+
+    void add(int v) {
+        if (size == a.length) a = Arrays.copyOf(a, size * 2);
+        a[size++] = v;
+    }
+
+    int get(int i) {
+        if (i >= size) throw new IndexOutOfBoundsException(i);
+        return a[i];
+    }
+
+    int size() { return size; }
+
+    int last() { return size == 0 ? -1 : a[size - 1]; }
+
+    void clear() { size = 0; }
+}
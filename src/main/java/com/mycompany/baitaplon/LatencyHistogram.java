@@ -0,0 +1,80 @@
+package com.mycompany.baitaplon;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram độ trễ kiểu HdrHistogram: bucket log-tuyến tính theo micro giây, 32 bucket con cho mỗi
+ * luỹ thừa 2 (sai số ≤ ~3%), từ 1µs tới vài ngày trong ~1200 ô. Ghi không khoá từ nhiều luồng.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;       // 32 bucket con
+    private static final int LINEAR = SUB * 2;          // 0..63µs: mỗi µs một ô
+    private static final int MAX_EXP = 40;              // 2^40µs ≈ 12 ngày
+    private static final int BUCKETS = LINEAR + (MAX_EXP - SUB_BITS) * SUB;
+
+    record Snapshot(long count, double meanMs, double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs) {}
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    void recordNanos(long nanos) {
+        long us = Math.max(nanos / 1000, 0);
+        counts.incrementAndGet(index(us));
+        count.increment();
+        sumMicros.add(us);
+        maxMicros.accumulateAndGet(us, Math::max);
+    }
+
+    private static int index(long us) {
+        if (us < LINEAR) return (int) us;
+        int exp = 63 - Long.numberOfLeadingZeros(us);             // ≥ 6
+        int sub = (int) (us >>> (exp - SUB_BITS)) & (SUB - 1);
+        int i = LINEAR + (exp - SUB_BITS - 1) * SUB + sub;
+        return Math.min(i, BUCKETS - 1);
+    }
+
+    /** Giá trị lớn nhất (µs) thuộc bucket {@code i}. */
+    private static long upperBound(int i) {
+        if (i < LINEAR) return i;
+        int exp = (i - LINEAR) / SUB + SUB_BITS + 1;
+        int sub = (i - LINEAR) % SUB;
+        long width = 1L << (exp - SUB_BITS);
+        return (1L << exp) + (sub + 1) * width - 1;
+    }
+
+    long count() { return count.sum(); }
+
+    /** Percentile (0..1) tính bằng micro giây; 0 nếu chưa có mẫu. */
+    long percentileMicros(double p) {
+        long n = count();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), maxMicros.get());
+        }
+        return maxMicros.get();
+    }
+
+    Snapshot snapshot() {
+        long n = count();
+        double mean = n == 0 ? 0 : sumMicros.sum() / (double) n / 1000.0;
+        return new Snapshot(n, mean,
+                percentileMicros(0.50) / 1000.0, percentileMicros(0.90) / 1000.0,
+                percentileMicros(0.99) / 1000.0, percentileMicros(0.999) / 1000.0,
+                maxMicros.get() / 1000.0);
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.reset();
+        sumMicros.reset();
+        maxMicros.set(0);
+    }
+}
@@ -0,0 +1,386 @@
+package com.mycompany.baitaplon;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Mở trang gốc ({@link ResultItem#link}) của các kết quả để đọc giá thật, vì snippet thường bị cắt mất giá.
+ * Dùng chung {@link HttpClient} (và pool kết nối) của {@link CseClient}; tối đa {@code maxConcurrent} trang cùng lúc
+ * và {@code perHost} trang trên một host.
+ *
+ * <p>Body được đọc dạng stream từng khúc nhỏ, tối đa {@code byteCap} byte (sau giải nén), và đóng ngay khi thấy giá
+ * đầu tiên — không bao giờ giữ cả trang trong bộ nhớ. Trong mỗi khúc, giá khai báo cho máy đọc ({@code
+ * product:price:amount}, {@code itemprop="price"}, {@code "price":} của JSON-LD) được ưu tiên hơn giá trong chữ.</p>
+ */
+final class LinkPriceFetcher {
+    static final int DEFAULT_CONCURRENCY = 8;
+    static final int DEFAULT_PER_HOST = 2;
+    static final int DEFAULT_BYTE_CAP = 512 * 1024;
+
+    private static final int CHUNK_CHARS = 4096;
+    // Phần đuôi khúc trước được giữ lại để không bỏ sót giá/thẻ meta nằm vắt qua ranh giới hai khúc
+    private static final int RAW_OVERLAP = 512;
+    private static final int TEXT_OVERLAP = 48;
+
+    private static final String META_NAME = "(?:product:price:amount|og:price:amount|price)";
+    private static final String NUMBER = "([0-9][0-9.,]{0,20})";
+    private static final Pattern META_PRICE = Pattern.compile(
+            "(?:itemprop|property|name)\\s*=\\s*[\"']" + META_NAME + "[\"'][^>]{0,200}?content\\s*=\\s*[\"']" + NUMBER
+            + "|content\\s*=\\s*[\"']" + NUMBER + "[\"'][^>]{0,200}?(?:itemprop|property|name)\\s*=\\s*[\"']" + META_NAME + "[\"']"
+            + "|\"price\"\\s*:\\s*\"?" + NUMBER,
+            Pattern.CASE_INSENSITIVE);
+
+    /** Kết quả một lượt: số trang đã đọc xong, có giá, lỗi, bị bỏ vì hết hạn; số byte đã đọc. */
+    record Stats(int checked, int found, int failed, int timedOut, long bytes) {}
+
+    private final HttpClient http;
+    private final ExecutorService exec;
+    private final int byteCap;
+    private final int perHost;
+    private final Semaphore slots;
+    private final ConcurrentHashMap<String, Semaphore> hosts = new ConcurrentHashMap<>();
+
+    LinkPriceFetcher(HttpClient http, ExecutorService exec) {
+        this(http, exec, DEFAULT_CONCURRENCY, DEFAULT_PER_HOST, DEFAULT_BYTE_CAP);
+    }
+
+    LinkPriceFetcher(HttpClient http, ExecutorService exec, int maxConcurrent, int perHost, int byteCap) {
+        this.http = http;
+        this.exec = exec;
+        this.slots = new Semaphore(maxConcurrent);
+        this.perHost = perHost;
+        this.byteCap = byteCap;
+    }
+
+    /**
+     * Đọc giá của các kết quả chưa kiểm tra và ghi vào {@link ResultItem#verifiedPrice}. {@code onChecked} được gọi
+     * (trên thread tải) cho từng kết quả vừa xong. Trang chưa xong khi hết {@code deadline} bị huỷ và giữ nguyên
+     * trạng thái chưa kiểm tra.
+     */
+    Stats verify(List<ResultItem> items, Duration deadline, Consumer<ResultItem> onChecked) throws InterruptedException {
+        long end = System.nanoTime() + deadline.toNanos();
+        AtomicInteger found = new AtomicInteger(), failed = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (ResultItem it : items) {
+            if (it.verifiedPrice != ResultItem.NOT_CHECKED) continue;
+            URI uri = pageUri(it.link);
+            if (uri == null) continue;
+            tasks.add(() -> {
+                try {
+                    long p = check(uri, end, bytes);
+                    it.verifiedPrice = p >= 0 ? p : ResultItem.NO_PRICE;
+                    if (p >= 0) found.incrementAndGet();
+                } catch (InterruptedException | HttpTimeoutException ex) {
+                    throw ex; // hết hạn hoặc bị huỷ: để lần sau thử lại
+                } catch (Exception ex) {
+                    if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+                    it.verifiedPrice = ResultItem.NO_PRICE;
+                    failed.incrementAndGet();
+                }
+                onChecked.accept(it);
+                return true;
+            });
+        }
+        if (tasks.isEmpty()) return new Stats(0, 0, 0, 0, 0);
+
+        // invokeAll huỷ (ngắt) các task còn chạy khi hết hạn, kéo theo huỷ request đang đọc dở
+        List<Future<Boolean>> done = exec.invokeAll(tasks, Math.max(0, end - System.nanoTime()), TimeUnit.NANOSECONDS);
+        int checked = 0, timedOut = 0;
+        for (Future<Boolean> f : done) {
+            if (f.isCancelled()) { timedOut++; continue; }
+            try {
+                f.get();
+                checked++;
+            } catch (Exception ex) {
+                timedOut++; // hết hạn khi đang chờ slot hoặc chờ response
+            }
+        }
+        return new Stats(checked, found.get(), failed.get(), timedOut, bytes.get());
+    }
+
+    /** Giá đầu tiên trên trang, hoặc -1. */
+    private long check(URI uri, long end, AtomicLong bytes) throws Exception {
+        Semaphore host = hosts.computeIfAbsent(uri.getHost().toLowerCase(Locale.ROOT), h -> new Semaphore(perHost));
+        // Chờ slot của host trước rồi mới giữ slot chung, để host chậm không chiếm chỗ của host khác
+        if (!host.tryAcquire(remaining(end), TimeUnit.NANOSECONDS)) throw new InterruptedException();
+        try {
+            if (!slots.tryAcquire(remaining(end), TimeUnit.NANOSECONDS)) throw new InterruptedException();
+            try {
+                return fetch(uri, end, bytes);
+            } finally {
+                slots.release();
+            }
+        } finally {
+            host.release();
+        }
+    }
+
+    private long fetch(URI uri, long end, AtomicLong bytes) throws Exception {
+        HttpRequest req = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofNanos(Math.max(1, remaining(end))))
+                .header("User-Agent", "Mozilla/5.0 JavaHttpClient")
+                .header("Accept", "text/html,application/xhtml+xml")
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+        HttpResponse<InputStream> resp = http.send(req, HttpResponse.BodyHandlers.ofInputStream());
+        // Đóng body trước khi đọc hết: HttpClient ngừng nhận phần còn lại của trang
+        try (InputStream body = resp.body()) {
+            if (resp.statusCode() >= 400) throw new IOException("HTTP " + resp.statusCode());
+            String type = resp.headers().firstValue("Content-Type").orElse("text/html").toLowerCase(Locale.ROOT);
+            if (!type.startsWith("text/") && !type.contains("html") && !type.contains("xml")) return -1;
+
+            boolean gzip = resp.headers().firstValue("Content-Encoding")
+                    .map(v -> v.trim().equalsIgnoreCase("gzip")).orElse(false);
+            CappedInputStream capped = new CappedInputStream(gzip ? new GZIPInputStream(body, 8192) : body, byteCap);
+            try {
+                return findPrice(new InputStreamReader(capped, charsetOf(type)));
+            } finally {
+                bytes.addAndGet(capped.count);
+            }
+        }
+    }
+
+    private static long remaining(long end) {
+        return end - System.nanoTime();
+    }
+
+    /** Chỉ trang http(s); link lỗi cú pháp thì bỏ qua. */
+    static URI pageUri(String link) {
+        try {
+            URI u = URI.create(link.trim());
+            String s = u.getScheme();
+            if (s == null || u.getHost() == null) return null;
+            s = s.toLowerCase(Locale.ROOT);
+            return s.equals("http") || s.equals("https") ? u : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static Charset charsetOf(String contentType) {
+        int i = contentType.indexOf("charset=");
+        if (i < 0) return StandardCharsets.UTF_8;
+        String name = contentType.substring(i + 8).replace("\"", "").split("[;\\s]")[0];
+        try {
+            return Charset.forName(name);
+        } catch (Exception ex) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    /**
+     * Đọc {@code in} từng khúc, trả về giá đầu tiên (ưu tiên thẻ meta/JSON-LD trong cùng khúc) hoặc -1 khi hết.
+     * Chữ được tách khỏi thẻ HTML, bỏ nội dung {@code <script>}/{@code <style>} và giải mã vài entity hay gặp
+     * ({@code &nbsp;}, {@code &#8363;}...) trước khi đưa cho {@link PriceExtractor}.
+     */
+    static long findPrice(Reader in) throws IOException {
+        char[] buf = new char[CHUNK_CHARS];
+        StringBuilder raw = new StringBuilder(CHUNK_CHARS + RAW_OVERLAP);
+        TextStripper text = new TextStripper();
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            raw.append(buf, 0, n);
+            long p = metaPrice(raw);
+            if (p >= 0) return p;
+            raw.delete(0, Math.max(0, raw.length() - RAW_OVERLAP));
+
+            text.feed(buf, n);
+            p = text.scan(false);
+            if (p >= 0) return p;
+        }
+        return text.scan(true);
+    }
+
+    private static long metaPrice(CharSequence raw) {
+        Matcher m = META_PRICE.matcher(raw);
+        while (m.find()) {
+            if (m.end() == raw.length()) break; // số có thể còn tiếp ở khúc sau
+            String num = m.group(1) != null ? m.group(1) : m.group(2) != null ? m.group(2) : m.group(3);
+            long v = parseMachineNumber(num);
+            if (v >= PriceExtractor.MIN_PRICE && v <= PriceExtractor.MAX_PRICE) return v;
+        }
+        return -1;
+    }
+
+    /** "12990000", "12990000.00", "12.990.000" → 12990000: bỏ phần lẻ 1–2 chữ số rồi bỏ mọi dấu phân cách. */
+    static long parseMachineNumber(String s) {
+        int k = s.length();
+        while (k > 0 && (s.charAt(k - 1) == '.' || s.charAt(k - 1) == ',')) k--;
+        int sep = Math.max(s.lastIndexOf('.', k - 1), s.lastIndexOf(',', k - 1));
+        if (sep >= 0 && k - sep - 1 <= 2) k = sep;
+        long v = 0;
+        for (int i = 0; i < k; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') continue;
+            if (v > PriceExtractor.MAX_PRICE) return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    /** Tách chữ khỏi HTML theo từng khúc; trạng thái (đang trong thẻ, script, entity) giữ qua các khúc. */
+    private static final class TextStripper {
+        private static final String[] SKIP_TAGS = {"script", "style"};
+
+        private final StringBuilder text = new StringBuilder(CHUNK_CHARS + TEXT_OVERLAP);
+        private final StringBuilder tag = new StringBuilder();
+        private final StringBuilder entity = new StringBuilder();
+        private boolean inTag, tagNameDone, inEntity;
+        private String skipUntil;   // "</script" khi đang trong script; null nếu không
+        private int skipMatched;
+
+        void feed(char[] buf, int n) {
+            for (int i = 0; i < n; i++) {
+                char c = buf[i];
+                if (skipUntil != null) {
+                    // Không phân tích thẻ trong script: "a<b" của JS sẽ nuốt mất thẻ đóng
+                    if (Character.toLowerCase(c) == skipUntil.charAt(skipMatched)) {
+                        if (++skipMatched == skipUntil.length()) {
+                            skipUntil = null;
+                            inTag = true;
+                            tagNameDone = true;
+                            tag.setLength(0);
+                        }
+                    } else {
+                        skipMatched = c == '<' ? 1 : 0;
+                    }
+                } else if (inTag) {
+                    if (c == '>') {
+                        inTag = false;
+                        put(' ');
+                        String name = tag.toString().toLowerCase(Locale.ROOT);
+                        for (String t : SKIP_TAGS) {
+                            if (name.equals(t)) {
+                                skipUntil = "</" + t;
+                                skipMatched = 0;
+                            }
+                        }
+                    } else if (!tagNameDone && tag.length() < 8
+                            && (Character.isLetterOrDigit(c) || c == '/' && tag.isEmpty())) {
+                        tag.append(c);
+                    } else {
+                        tagNameDone = true;
+                    }
+                } else if (inEntity) {
+                    if (c == ';') {
+                        inEntity = false;
+                        put(decode(entity));
+                    } else if (entity.length() < 8 && (Character.isLetterOrDigit(c) || c == '#')) {
+                        entity.append(c);
+                    } else {
+                        inEntity = false;
+                        text.append('&').append(entity); // không phải entity: giữ nguyên
+                        i--; // đọc lại ký tự này ở trạng thái thường
+                    }
+                } else if (c == '<') {
+                    inTag = true;
+                    tagNameDone = false;
+                    tag.setLength(0);
+                } else if (c == '&') {
+                    inEntity = true;
+                    entity.setLength(0);
+                } else {
+                    put(c);
+                }
+            }
+        }
+
+        /** Gộp khoảng trắng liên tiếp (kể cả chỗ thẻ bị bỏ) thành một: "1.250.000</b> <sup>đ" vẫn là một giá. */
+        private void put(char c) {
+            if (Character.isWhitespace(c) || c == '\u00a0') {
+                if (!text.isEmpty() && text.charAt(text.length() - 1) == ' ') return;
+                c = ' ';
+            }
+            text.append(c);
+        }
+
+        /**
+         * Quét phần chữ đã đủ chắc: tới khoảng trắng cuối cùng (số ở cuối khúc có thể còn nối tiếp ở khúc sau),
+         * hoặc tất cả nếu {@code eof}. Giữ lại một đoạn đuôi cho lần quét sau.
+         */
+        long scan(boolean eof) {
+            int len = text.length();
+            int cut = len;
+            if (!eof) {
+                cut = 0;
+                for (int i = len - 1; i >= 0; i--) {
+                    if (Character.isWhitespace(text.charAt(i))) { cut = i + 1; break; }
+                }
+                if (cut == 0 && len <= 4 * TEXT_OVERLAP) return -1;
+                if (cut == 0) cut = len;
+            }
+            long p = PriceExtractor.first(text.subSequence(0, cut));
+            text.delete(0, Math.max(0, Math.min(cut, len - TEXT_OVERLAP)));
+            return p;
+        }
+
+        private static char decode(CharSequence e) {
+            String s = e.toString();
+            switch (s) {
+                case "nbsp": return ' ';
+                case "amp": return '&';
+                default: break;
+            }
+            try {
+                int cp = s.startsWith("#x") || s.startsWith("#X") ? Integer.parseInt(s.substring(2), 16)
+                        : s.startsWith("#") ? Integer.parseInt(s.substring(1)) : ' ';
+                if (Character.isBmpCodePoint(cp)) return (char) cp;
+            } catch (NumberFormatException ignored) {}
+            return ' ';
+        }
+    }
+
+    /** Đếm byte đã đọc và báo hết stream khi chạm {@code cap}. */
+    private static final class CappedInputStream extends FilterInputStream {
+        private final long cap;
+        long count;
+
+        CappedInputStream(InputStream in, long cap) {
+            super(in);
+            this.cap = cap;
+        }
+
+        @Override public int read() throws IOException {
+            if (count >= cap) return -1;
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override public int read(byte[] b, int off, int len) throws IOException {
+            if (count >= cap) return -1;
+            int n = super.read(b, off, (int) Math.min(len, cap - count));
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
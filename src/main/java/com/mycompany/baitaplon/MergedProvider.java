@@ -0,0 +1,88 @@
+package com.mycompany.baitaplon;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Nhiều nguồn khác nội dung (các CX khác nhau): hỏi song song mọi nguồn rồi xếp hạng chung bằng reciprocal
+ * rank fusion — điểm của một link là tổng 1/({@value #RRF_K} + hạng) trên các nguồn có nó, link trùng (sau chuẩn hoá)
+ * chỉ giữ bản của nguồn xếp nó cao nhất. Nguồn lỗi được bỏ qua nếu còn nguồn khác trả kết quả.
+ */
+final class MergedProvider implements SearchProvider {
+    // Hằng số thường dùng của RRF: đủ lớn để hạng 1 và hạng 2 không chênh quá nhiều
+    private static final int RRF_K = 60;
+
+    private final List<SearchProvider> sources;
+    private final ExecutorService exec;
+
+    MergedProvider(List<? extends SearchProvider> sources, ExecutorService exec) {
+        if (sources.isEmpty()) throw new IllegalArgumentException("Cần ít nhất một nguồn");
+        this.sources = List.copyOf(sources);
+        this.exec = exec;
+    }
+
+    @Override public String name() {
+        StringBuilder sb = new StringBuilder();
+        for (SearchProvider s : sources) sb.append(sb.isEmpty() ? "" : "+").append(s.name());
+        return sb.toString();
+    }
+
+    @Override public int quotaLeft() {
+        int min = Integer.MAX_VALUE;
+        for (SearchProvider s : sources) min = Math.min(min, s.quotaLeft());
+        return min; // mỗi lượt tốn quota của mọi nguồn
+    }
+
+    List<SearchProvider> sources() { return sources; }
+
+    @Override
+    public List<ResultItem> fetch(String query, int num, int start) throws Exception {
+        List<Future<List<ResultItem>>> futures = new ArrayList<>(sources.size());
+        try {
+            for (SearchProvider s : sources) futures.add(exec.submit(() -> s.fetch(query, num, start)));
+
+            List<List<ResultItem>> pages = new ArrayList<>(sources.size());
+            Exception first = null;
+            for (Future<List<ResultItem>> f : futures) {
+                try {
+                    pages.add(f.get());
+                } catch (ExecutionException ex) {
+                    if (first == null) first = ex.getCause() instanceof Exception e ? e : ex;
+                }
+            }
+            if (pages.isEmpty()) throw first;
+            return fuse(pages, start);
+        } finally {
+            for (Future<?> f : futures) f.cancel(true);
+        }
+    }
+
+    /** Trộn các trang cùng vị trí {@code start}; hạng tuyệt đối là {@code start + i}. */
+    static List<ResultItem> fuse(List<List<ResultItem>> pages, int start) {
+        record Entry(ResultItem item, double score, int bestRank, int order) {}
+        Map<String, Entry> byLink = new HashMap<>();
+        int order = 0;
+        for (List<ResultItem> page : pages) {
+            for (int i = 0; i < page.size(); i++) {
+                ResultItem it = page.get(i);
+                int rank = start + i;
+                double s = 1.0 / (RRF_K + rank);
+                int o = order++;
+                byLink.merge(UrlCanonicalizer.canonical(it.link), new Entry(it, s, rank, o), (a, b) -> {
+                    Entry keep = b.bestRank < a.bestRank ? b : a;
+                    return new Entry(keep.item, a.score + b.score, keep.bestRank, Math.min(a.order, b.order));
+                });
+            }
+        }
+        List<Entry> entries = new ArrayList<>(byLink.values());
+        entries.sort((a, b) -> a.score != b.score ? Double.compare(b.score, a.score) : Integer.compare(a.order, b.order));
+        List<ResultItem> out = new ArrayList<>(entries.size());
+        for (Entry e : entries) out.add(e.item);
+        return out;
+    }
+}
@@ -0,0 +1,57 @@
+package com.mycompany.baitaplon;
+
+/**
+ * Quyết định cần tải trước bao nhiêu trang khi người dùng cuộn danh sách kết quả: đủ để trang kế tiếp
+ * đã về trước khi họ cuộn tới cuối (theo tốc độ cuộn và độ trễ mạng đo được), nhưng ít lại khi quota sắp hết.
+ */
+final class PrefetchPolicy {
+    static final int MAX_PAGES_AHEAD = 3;
+
+    // Chờ thêm 50% so với p90 để đuôi chậm vẫn kịp
+    private static final double LATENCY_MARGIN = 1.5;
+
+    private double rowsPerSec;
+    private int lastRow = -1;
+    private long lastNanos;
+
+    /** Ghi nhận vị trí dòng đầu đang hiện; chỉ tính chiều cuộn xuống. */
+    void onScroll(int firstVisibleRow, long nowNanos) {
+        if (lastRow >= 0) {
+            double dt = (nowNanos - lastNanos) / 1e9;
+            if (dt > 0) {
+                double v = Math.max(0, firstVisibleRow - lastRow) / dt;
+                // Dừng lâu thì bỏ hẳn tốc độ cũ; cuộn liên tục thì làm mượt
+                double alpha = dt > 1 ? 1 : 0.3;
+                rowsPerSec = alpha * v + (1 - alpha) * rowsPerSec;
+            }
+        }
+        lastRow = firstVisibleRow;
+        lastNanos = nowNanos;
+    }
+
+    void reset() {
+        rowsPerSec = 0;
+        lastRow = -1;
+    }
+
+    double rowsPerSec() { return rowsPerSec; }
+
+    /**
+     * @param rowsBelow   số dòng đã có nằm dưới vùng đang hiện
+     * @param visibleRows số dòng hiện trên màn hình
+     * @param latencyMs   thời gian một request (p90) đo được
+     * @param quotaLeft   số request còn lại trong ngày
+     * @return số trang nên có (đang tải hoặc sắp tải) phía trước; 0 là chưa cần
+     */
+    int pagesAhead(int rowsBelow, int visibleRows, double latencyMs, int quotaLeft) {
+        if (quotaLeft <= 0) return 0;
+
+        // Số dòng người dùng sẽ cuộn qua trong lúc chờ một trang, cộng một màn hình dự phòng
+        double rowsNeeded = Math.max(visibleRows, 1) + rowsPerSec * latencyMs / 1000.0 * LATENCY_MARGIN;
+        if (rowsBelow > rowsNeeded) return 0;
+
+        int depth = (int) Math.ceil((rowsNeeded - rowsBelow) / CseClient.PAGE_SIZE);
+        int quotaCap = quotaLeft > 50 ? MAX_PAGES_AHEAD : quotaLeft > 10 ? 2 : 1;
+        return Math.max(1, Math.min(depth, quotaCap));
+    }
+}
@@ -0,0 +1,213 @@
+package com.mycompany.baitaplon;
+
+/**
+ * Quét giá tiền trong văn bản tiếng Việt và chuẩn hoá về số VND ({@code long}).
+ *
+ * <p>Nhận các dạng: {@code 1.200.000đ}, {@code 1,200,000 VND}, {@code 1.200.000 ₫}, {@code VND 1.200.000},
+ * {@code 100.000d}, {@code 299k}, {@code 299 nghìn}, {@code 1,5tr}, {@code 1.5 triệu}, {@code 2tr5} (= 2.500.000),
+ * {@code 1 tỷ}. Không nhận {@code 4K}/{@code 8K} (k sau một chữ số đơn lẻ) và {@code d} cách số ({@code 30 d}).
+ * Một số chỉ được coi là giá khi có đơn vị tiền đi kèm (trước hoặc sau), để không bắt nhầm năm, dung lượng...</p>
+ *
+ * <p>Bộ quét viết tay, chạy một lượt trên {@link CharSequence}, không dùng regex và không cấp phát chuỗi con.</p>
+ */
+final class PriceExtractor {
+
+    static final long MIN_PRICE = 1_000L;
+    static final long MAX_PRICE = 100_000_000_000L;
+
+    /** Nhận từng giá tìm được cùng vị trí [start, end) trong văn bản. */
+    @FunctionalInterface
+    interface Sink {
+        /** @return false để dừng quét */
+        boolean price(long vnd, int start, int end);
+    }
+
+    private PriceExtractor() {}
+
+    /** Giá đầu tiên trong văn bản, hoặc -1. */
+    static long first(CharSequence s) {
+        long[] out = {-1};
+        scan(s, (vnd, a, b) -> {
+            out[0] = vnd;
+            return false;
+        });
+        return out[0];
+    }
+
+    static void scan(CharSequence s, Sink sink) {
+        int n = s.length();
+        int i = 0;
+        while (i < n) {
+            char c = s.charAt(i);
+            if (!isDigit(c) || (i > 0 && isWordChar(s.charAt(i - 1)))) {
+                i++;
+                continue;
+            }
+
+            // ---- đọc số: chữ số + dấu . , làm phân cách nghìn hoặc thập phân ----
+            int start = i;
+            long intPart = 0;
+            long frac = 0;
+            int fracDigits = 0;
+            boolean grouped = false, decimal = false, overflow = false;
+            int groupLen = 0;
+            while (i < n) {
+                c = s.charAt(i);
+                if (isDigit(c)) {
+                    if (decimal) {
+                        if (fracDigits < 3) { frac = frac * 10 + (c - '0'); fracDigits++; }
+                    } else {
+                        if (intPart > MAX_PRICE) overflow = true;
+                        else intPart = intPart * 10 + (c - '0');
+                        groupLen++;
+                    }
+                    i++;
+                } else if ((c == '.' || c == ',') && i + 1 < n && isDigit(s.charAt(i + 1)) && !decimal) {
+                    int run = digitRun(s, i + 1);
+                    if (run == 3 && (grouped || groupLen <= 3)) {
+                        grouped = true; // phân cách nghìn
+                        groupLen = 0;
+                        i++;
+                    } else if (!grouped) {
+                        decimal = true;
+                        i++;
+                    } else {
+                        break;
+                    }
+                } else {
+                    break;
+                }
+            }
+            int numEnd = i;
+            if (overflow) continue;
+
+            // ---- đơn vị phía sau ----
+            int j = skipSpaces(s, numEnd, 1);
+            long mult = 0;
+            int unitEnd = j;
+            int u;
+            if ((u = matchWord(s, j, "triệu")) > 0 || (u = matchWord(s, j, "trieu")) > 0
+                    || (u = matchWord(s, j, "tr")) > 0) {
+                mult = 1_000_000L;
+                unitEnd = j + u;
+                // "2tr5" / "2tr500" = 2.500.000
+                if (!decimal && u == 2 && unitEnd < n && isDigit(s.charAt(unitEnd))) {
+                    int run = digitRun(s, unitEnd);
+                    if (run <= 3 && (unitEnd + run >= n || !isWordChar(s.charAt(unitEnd + run)))) {
+                        frac = parseDigits(s, unitEnd, run);
+                        fracDigits = run;
+                        decimal = true;
+                        unitEnd += run;
+                    }
+                }
+            } else if ((u = matchWord(s, j, "tỷ")) > 0 || (u = matchWord(s, j, "tỉ")) > 0 || (u = matchWord(s, j, "ty")) > 0) {
+                mult = 1_000_000_000L;
+                unitEnd = j + u;
+            } else if ((u = matchWord(s, j, "nghìn")) > 0 || (u = matchWord(s, j, "ngàn")) > 0
+                    || (u = matchWord(s, j, "k")) > 0) {
+                // "4K", "8K" là độ phân giải, không phải 4.000đ: bỏ k/nghìn sau một chữ số đơn lẻ
+                if (intPart < 10 && !decimal && !grouped) continue;
+                mult = 1_000L;
+                unitEnd = j + u;
+            } else if ((u = matchWord(s, j, "vnđ")) > 0 || (u = matchWord(s, j, "vnd")) > 0
+                    || (u = matchWord(s, j, "đồng")) > 0 || (u = matchWord(s, j, "đ")) > 0
+                    || (u = matchWord(s, j, "₫")) > 0
+                    || (j == numEnd && (u = matchWord(s, j, "d")) > 0)) { // "d" trần chỉ khi dính số: "100.000d"
+                mult = 1;
+                unitEnd = j + u;
+            } else if (hasCurrencyBefore(s, start)) {
+                mult = 1;
+                unitEnd = numEnd;
+            }
+
+            if (mult == 0) continue;
+            // "1.5đ" không phải giá: phần thập phân chỉ hợp lệ với k/tr/tỷ
+            if (mult == 1 && decimal) continue;
+
+            long vnd = intPart * mult;
+            if (decimal && fracDigits > 0) {
+                long scale = 1;
+                for (int k = 0; k < fracDigits; k++) scale *= 10;
+                vnd += frac * mult / scale;
+            }
+            if (vnd >= MIN_PRICE && vnd <= MAX_PRICE) {
+                if (!sink.price(vnd, start, unitEnd)) return;
+            }
+            i = Math.max(unitEnd, numEnd);
+        }
+    }
+
+    /** "1.200.000đ" */
+    static String format(long vnd) {
+        StringBuilder sb = new StringBuilder(16);
+        String d = Long.toString(vnd);
+        for (int k = 0; k < d.length(); k++) {
+            if (k > 0 && (d.length() - k) % 3 == 0) sb.append('.');
+            sb.append(d.charAt(k));
+        }
+        return sb.append('đ').toString();
+    }
+
+    // ====== helpers ======
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    private static int digitRun(CharSequence s, int from) {
+        int k = from;
+        while (k < s.length() && isDigit(s.charAt(k))) k++;
+        return k - from;
+    }
+
+    private static long parseDigits(CharSequence s, int from, int len) {
+        long v = 0;
+        for (int k = from; k < from + len; k++) v = v * 10 + (s.charAt(k) - '0');
+        return v;
+    }
+
+    private static int skipSpaces(CharSequence s, int from, int max) {
+        int k = from;
+        while (k < s.length() && k - from < max && (s.charAt(k) == ' ' || s.charAt(k) == ' ')) k++;
+        return k;
+    }
+
+    /**
+     * So khớp không phân biệt hoa thường một đơn vị tại {@code at}; đơn vị phải kết thúc ở ranh giới từ
+     * (riêng "tr" được phép dính chữ số ngay sau, như "2tr5"). Trả về độ dài khớp hoặc 0.
+     */
+    private static int matchWord(CharSequence s, int at, String word) {
+        int len = word.length();
+        if (at + len > s.length()) return 0;
+        for (int k = 0; k < len; k++) {
+            char a = Character.toLowerCase(s.charAt(at + k));
+            if (a != word.charAt(k)) return 0;
+        }
+        int end = at + len;
+        if (end < s.length()) {
+            char next = s.charAt(end);
+            if (Character.isLetter(next)) return 0;
+            if (isDigit(next) && !word.equals("tr")) return 0;
+        }
+        return len;
+    }
+
+    /** "VND 1.200.000", "₫1.200.000", "giá: 1.200.000" không tính — chỉ nhận ký hiệu tiền tệ rõ ràng. */
+    private static boolean hasCurrencyBefore(CharSequence s, int numStart) {
+        int k = numStart - 1;
+        while (k >= 0 && (s.charAt(k) == ' ' || s.charAt(k) == ' ' || s.charAt(k) == ':')) k--;
+        if (k < 0) return false;
+        if (s.charAt(k) == '₫') return true;
+        if (k >= 2) {
+            char a = Character.toLowerCase(s.charAt(k - 2)), b = Character.toLowerCase(s.charAt(k - 1)),
+                 c = Character.toLowerCase(s.charAt(k));
+            boolean vnd = a == 'v' && b == 'n' && (c == 'd' || c == 'đ');
+            return vnd && (k < 3 || !Character.isLetterOrDigit(s.charAt(k - 3)));
+        }
+        return false;
+    }
+}
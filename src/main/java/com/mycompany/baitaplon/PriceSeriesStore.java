@@ -0,0 +1,305 @@
+package com.mycompany.baitaplon;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chuỗi thời gian giá của các truy vấn theo dõi ({@link PriceWatcher}), trong một file chỉ ghi nối.
+ *
+ * <p>Mỗi bản ghi là một byte loại rồi các trường varint (chuỗi = độ dài varint + UTF-8):
+ * <ul>
+ *   <li>{@code 'W' id query} — khai báo một truy vấn theo dõi;</li>
+ *   <li>{@code 'S' id watchId link domain} — khai báo một chuỗi (một link đã chuẩn hoá của một truy vấn);</li>
+ *   <li>{@code 'P' seriesId Δgiây giá} — một điểm; Δ tính từ điểm trước đó trong file, giá 0 = trang không còn giá.</li>
+ * </ul>
+ * Chuỗi chỉ được khai báo một lần và điểm chỉ được ghi khi giá khác điểm trước của chuỗi, nên một điểm thường
+ * chiếm 6–9 byte. Mỗi lượt chạy ghi bằng một lần {@code write}; bản ghi dở ở cuối file (tắt máy giữa chừng)
+ * bị cắt bỏ khi mở lại. Bản ghi hỏng (id không khớp, tham chiếu chuỗi chưa khai báo) cũng vậy: file được cắt từ
+ * bản ghi đó, phần trước vẫn dùng được.</p>
+ *
+ * <p>Chỉ một tiến trình được mở file: khoá trên file được giữ suốt đời đối tượng (app và PriceWatcher cùng ghi
+ * ~/.googlecse/prices.ts).</p>
+ */
+final class PriceSeriesStore implements Closeable {
+
+    private static final byte WATCH = 'W', SERIES = 'S', POINT = 'P';
+
+    /** Giá đọc được của một link trong một lượt; {@code vnd} &lt; 0 = không thấy giá. */
+    record Observation(String link, String domain, long vnd) {}
+
+    /** Một điểm khi đọc lại: {@code vnd} = 0 nghĩa là từ lúc đó trang không còn giá. */
+    record Point(String query, String link, String domain, long epochSecond, long vnd) {}
+
+    @FunctionalInterface
+    interface PointSink {
+        void point(Point p);
+    }
+
+    private record Series(int watch, String link, String domain) {}
+
+    // File đang mở trong JVM này; phải chặn trước khi mở channel, vì trên Linux đóng bất kỳ channel nào tới file
+    // cũng nhả mọi khoá của JVM trên file đó
+    private static final Set<Path> OPEN = ConcurrentHashMap.newKeySet();
+
+    private final Path key;
+    private final FileChannel channel;
+    private final FileLock lock;
+
+    private final HashMap<String, Integer> watchIds = new HashMap<>();
+    private final List<String> watches = new ArrayList<>();
+    private final HashMap<String, Integer> seriesIds = new HashMap<>(); // watchId + '\t' + link
+    private final List<Series> series = new ArrayList<>();
+    private long[] lastPrice = new long[64];
+    private long lastEpoch;
+    private long points;
+
+    PriceSeriesStore(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        key = file.getParent().toRealPath().resolve(file.getFileName());
+        if (!OPEN.add(key)) throw new IOException("File chuỗi giá đang được dùng: " + file);
+
+        FileChannel ch = null;
+        try {
+            ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock l;
+            try {
+                l = ch.tryLock();
+            } catch (OverlappingFileLockException e) {
+                l = null;
+            }
+            if (l == null) throw new IOException("File chuỗi giá đang được tiến trình khác dùng: " + file);
+            channel = ch;
+            lock = l;
+
+            long good = replay(null);
+            if (good < channel.size()) channel.truncate(good);
+            channel.position(good);
+        } catch (IOException | RuntimeException e) {
+            if (ch != null) ch.close(); // nhả luôn khoá
+            OPEN.remove(key);
+            throw e;
+        }
+    }
+
+    /** ~/.googlecse/prices.ts */
+    static Path defaultFile() {
+        return Path.of(System.getProperty("user.home"), ".googlecse", "prices.ts");
+    }
+
+    /**
+     * Ghi các điểm của một lượt chạy: chỉ link có giá khác lần ghi trước (link mới mà không có giá thì bỏ qua).
+     * @return số điểm đã ghi
+     */
+    synchronized int append(String query, List<Observation> observations, long epochSecond) throws IOException {
+        Buf out = new Buf();
+        Integer w = watchIds.get(query);
+        int written = 0;
+        for (Observation o : observations) {
+            long vnd = Math.max(o.vnd(), 0);
+            Integer s = w == null ? null : seriesIds.get(w + "\t" + o.link());
+            if (s == null && vnd == 0) continue;
+            if (s != null && lastPrice[s] == vnd) continue;
+
+            if (w == null) {
+                w = watches.size();
+                out.put(WATCH).putVarLong(w).putString(query);
+                defineWatch(w, query);
+            }
+            if (s == null) {
+                s = series.size();
+                out.put(SERIES).putVarLong(s).putVarLong(w).putString(o.link()).putString(o.domain());
+                defineSeries(s, w, o.link(), o.domain());
+            }
+            long dt = Math.max(0, epochSecond - lastEpoch);
+            out.put(POINT).putVarLong(s).putVarLong(dt).putVarLong(vnd);
+            lastEpoch += dt;
+            lastPrice[s] = vnd;
+            points++;
+            written++;
+        }
+        if (out.size() > 0) {
+            ByteBuffer bb = out.buffer();
+            while (bb.hasRemaining()) channel.write(bb);
+        }
+        return written;
+    }
+
+    /** Giá của lần ghi gần nhất, 0 nếu trang không còn giá, -1 nếu chưa từng ghi. */
+    synchronized long lastPrice(String query, String link) {
+        Integer w = watchIds.get(query);
+        Integer s = w == null ? null : seriesIds.get(w + "\t" + link);
+        return s == null ? -1 : lastPrice[s];
+    }
+
+    synchronized int seriesCount() { return series.size(); }
+
+    synchronized long pointCount() { return points; }
+
+    synchronized long sizeBytes() throws IOException { return channel.size(); }
+
+    /** Đọc lại toàn bộ file theo thứ tự ghi (đọc tuần tự, không nạp cả file vào bộ nhớ). */
+    synchronized void forEach(PointSink sink) throws IOException {
+        replay(sink);
+    }
+
+    /**
+     * Đọc file từ đầu; dựng lại từ điển khi {@code sink == null} (lúc mở), ngược lại chỉ giao điểm cho sink.
+     * @return vị trí ngay sau bản ghi đầy đủ cuối cùng
+     */
+    private long replay(PointSink sink) throws IOException {
+        long size = channel.size();
+        Reader in = new Reader(new BufferedInputStream(Channels.newInputStream(channel.position(0)), 1 << 16));
+        // Lúc mở thì dựng từ điển thật; lúc đọc lại thì dùng bản sao cục bộ để không đụng trạng thái đang ghi
+        List<String> qs = sink == null ? watches : new ArrayList<>();
+        List<Series> ss = sink == null ? series : new ArrayList<>();
+        long epoch = 0, good = 0;
+        try {
+            while (in.pos < size) {
+                int type = in.read();
+                switch (type) {
+                    case WATCH -> {
+                        int id = (int) in.readVarLong();
+                        String q = in.readString();
+                        if (id != qs.size()) throw new EOFException(); // bản ghi hỏng: bỏ từ đây
+                        if (sink == null) defineWatch(id, q); else qs.add(q);
+                    }
+                    case SERIES -> {
+                        int id = (int) in.readVarLong();
+                        int w = (int) in.readVarLong();
+                        String link = in.readString(), domain = in.readString();
+                        if (id != ss.size() || w < 0 || w >= qs.size()) throw new EOFException();
+                        if (sink == null) defineSeries(id, w, link, domain); else ss.add(new Series(w, link, domain));
+                    }
+                    case POINT -> {
+                        int s = (int) in.readVarLong();
+                        long dt = in.readVarLong();
+                        long vnd = in.readVarLong();
+                        if (s < 0 || s >= ss.size() || dt < 0) throw new EOFException();
+                        // Chỉ cộng Δ khi cả bản ghi hợp lệ: Δ của điểm bị cắt mà còn trong epoch thì mọi điểm ghi
+                        // sau đó sẽ lệch sớm đúng chừng ấy khi đọc lại
+                        epoch += dt;
+                        if (sink == null) {
+                            lastPrice[s] = vnd;
+                            points++;
+                        } else {
+                            Series sr = ss.get(s);
+                            sink.point(new Point(qs.get(sr.watch()), sr.link(), sr.domain(), epoch, vnd));
+                        }
+                    }
+                    default -> throw new EOFException(); // byte rác ở cuối: coi như bản ghi dở
+                }
+                good = in.pos;
+            }
+        } catch (EOFException | IndexOutOfBoundsException partial) {
+            // bản ghi cuối chưa ghi xong, hoặc bản ghi hỏng
+        }
+        if (sink == null) lastEpoch = epoch;
+        channel.position(size);
+        return good;
+    }
+
+    private void defineWatch(int id, String query) {
+        watches.add(query);
+        watchIds.put(query, id);
+    }
+
+    private void defineSeries(int id, int watch, String link, String domain) {
+        series.add(new Series(watch, link, domain));
+        seriesIds.put(watch + "\t" + link, id);
+        if (id == lastPrice.length) lastPrice = Arrays.copyOf(lastPrice, id * 2);
+        lastPrice[id] = 0;
+    }
+
+    @Override public synchronized void close() throws IOException {
+        try {
+            channel.force(false);
+        } finally {
+            lock.release();
+            channel.close();
+            OPEN.remove(key);
+        }
+    }
+
+    /** Bộ đệm ghi tự giãn cho một lượt. */
+    private static final class Buf {
+        private byte[] a = new byte[256];
+        private int n;
+
+        Buf put(int b) {
+            if (n == a.length) a = Arrays.copyOf(a, n * 2);
+            a[n++] = (byte) b;
+            return this;
+        }
+
+        Buf putVarLong(long v) {
+            while ((v & ~0x7FL) != 0) {
+                put((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            return put((int) v);
+        }
+
+        Buf putString(String s) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            putVarLong(b.length);
+            for (byte x : b) put(x);
+            return this;
+        }
+
+        int size() { return n; }
+
+        ByteBuffer buffer() { return ByteBuffer.wrap(a, 0, n); }
+    }
+
+    /** Đọc varint/chuỗi và đếm vị trí; hết dữ liệu giữa bản ghi thì ném {@link EOFException}. */
+    private static final class Reader {
+        private final InputStream in;
+        long pos;
+
+        Reader(InputStream in) { this.in = in; }
+
+        int read() throws IOException {
+            int b = in.read();
+            if (b < 0) throw new EOFException();
+            pos++;
+            return b;
+        }
+
+        long readVarLong() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new EOFException();
+        }
+
+        String readString() throws IOException {
+            long len = readVarLong();
+            if (len > 1 << 20) throw new EOFException();
+            byte[] b = in.readNBytes((int) len);
+            if (b.length < len) throw new EOFException();
+            pos += len;
+            return new String(b, StandardCharsets.UTF_8);
+        }
+    }
+}
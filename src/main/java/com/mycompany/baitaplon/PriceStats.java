@@ -0,0 +1,70 @@
+package com.mycompany.baitaplon;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Gom giá theo domain qua mọi trang đã tải để tính min / trung vị / max.
+ * Giá được lưu trong mảng long theo domain; trung vị chỉ sắp xếp khi được hỏi.
+ */
+final class PriceStats {
+
+    record Summary(int count, long min, long median, long max) {
+        @Override public String toString() {
+            return count == 0 ? "—" : PriceExtractor.format(min) + " · " + PriceExtractor.format(median)
+                    + " · " + PriceExtractor.format(max) + " (" + count + ")";
+        }
+    }
+
+    private static final class LongList {
+        long[] a = new long[8];
+        int size;
+        boolean sorted = true;
+
+        void add(long v) {
+            if (size == a.length) a = Arrays.copyOf(a, size * 2);
+            if (size > 0 && v < a[size - 1]) sorted = false;
+            a[size++] = v;
+        }
+
+        Summary summary() {
+            if (size == 0) return new Summary(0, 0, 0, 0);
+            if (!sorted) {
+                Arrays.sort(a, 0, size);
+                sorted = true;
+            }
+            long median = (size & 1) == 1 ? a[size / 2] : (a[size / 2 - 1] + a[size / 2]) / 2;
+            return new Summary(size, a[0], median, a[size - 1]);
+        }
+    }
+
+    private final HashMap<String, LongList> byDomain = new HashMap<>();
+    private final LongList overall = new LongList();
+
+    /** Lấy giá đầu tiên trong title/snippet của kết quả (nếu có) và ghi nhận; trả về giá hoặc -1. */
+    long add(ResultItem it) {
+        long p = PriceExtractor.first(it.snippet);
+        if (p < 0) p = PriceExtractor.first(it.title);
+        if (p >= 0) add(it.displayLink, p);
+        return p;
+    }
+
+    void add(String domain, long vnd) {
+        byDomain.computeIfAbsent(domain.toLowerCase(Locale.ROOT), k -> new LongList()).add(vnd);
+        overall.add(vnd);
+    }
+
+    /** {@code null} = mọi domain. */
+    Summary summary(String domain) {
+        if (domain == null) return overall.summary();
+        LongList l = byDomain.get(domain.toLowerCase(Locale.ROOT));
+        return l == null ? new Summary(0, 0, 0, 0) : l.summary();
+    }
+
+    void clear() {
+        byDomain.clear();
+        overall.size = 0;
+        overall.sorted = true;
+    }
+}
@@ -0,0 +1,313 @@
+package com.mycompany.baitaplon;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chạy lại định kỳ các truy vấn giá đã lưu và ghi giá vào {@link PriceSeriesStore}.
+ *
+ * <pre>
+ * java -cp ... PriceWatcher watches.tsv [--interval 360] [--pages 1] [--concurrency 4] [--once]
+ * </pre>
+ *
+ * File theo dõi cùng định dạng với {@link BatchSearch} (luôn tìm ở chế độ giá); {@code --interval} tính bằng phút.
+ *
+ * <p>Một thread hẹn giờ chỉ đặt lịch, còn lượt chạy nằm trên virtual thread, tối đa {@code concurrency} truy vấn
+ * cùng lúc. Lần đầu mỗi truy vấn bắt đầu ở một thời điểm ngẫu nhiên trong chu kỳ, các lần sau lệch ±{@value
+ * #JITTER_PERCENT}%, để hàng nghìn truy vấn rải đều thay vì dồn vào cùng một phút. Chu kỳ được kéo dài nếu cần để
+ * cả danh sách chỉ dùng {@value #QUOTA_SHARE_PERCENT}% quota ngày, phần còn lại để tìm tay.</p>
+ *
+ * <p>Mỗi lượt được so với lượt trước của cùng truy vấn theo link đã chuẩn hoá: chỉ kết quả mới hoặc có title/snippet
+ * thay đổi mới được trích giá và đưa vào store (store còn bỏ tiếp những điểm trùng giá). Trạng thái so sánh nằm trong
+ * bộ nhớ, nên lượt đầu sau khi khởi động xử lý lại mọi kết quả một lần.</p>
+ */
+public final class PriceWatcher implements Closeable {
+    static final int JITTER_PERCENT = 10;
+    static final int QUOTA_SHARE_PERCENT = 50;
+
+    /** Một truy vấn theo dõi. */
+    record Watch(List<String> keywords) {
+        String query() { return CseClient.buildQuery(keywords, true); }
+    }
+
+    /** Kết quả một lượt: số kết quả, mới, đổi, không đổi, biến mất; số điểm giá đã ghi; lỗi nếu có. */
+    record RunResult(int results, int added, int changed, int unchanged, int removed, int points, Exception error) {}
+
+    @FunctionalInterface
+    interface Listener {
+        /** Gọi trên thread của lượt chạy. */
+        void onRun(Watch watch, RunResult result);
+    }
+
+    // Link (hash 64-bit của dạng chuẩn) và dấu vân tay title+snippet của lượt trước, sắp theo link
+    private record Snapshot(long[] links, int[] fingerprints) {
+        static final Snapshot EMPTY = new Snapshot(new long[0], new int[0]);
+    }
+
+    private final CseClient client;
+    private final PriceSeriesStore store;
+    private final int pages;
+    private final Listener listener;
+    private final Semaphore permits;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final ConcurrentHashMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Watch> watches = new ConcurrentHashMap<>();
+    private volatile Duration interval;
+    private volatile long effectiveMillis;
+
+    PriceWatcher(CseClient client, PriceSeriesStore store, Duration interval, int pages, int concurrency,
+                 Listener listener) {
+        this.client = client;
+        this.store = store;
+        this.interval = interval;
+        this.pages = Math.min(Math.max(pages, 1), CseClient.MAX_PAGES);
+        this.listener = listener;
+        this.permits = new Semaphore(Math.max(concurrency, 1));
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "price-watch-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.effectiveMillis = interval.toMillis();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Dùng: PriceWatcher <watches.tsv> [--interval phút] [--pages N] [--concurrency N] [--quota-day N] [--quota-minute N] [--once]");
+            System.exit(2);
+        }
+        long minutes = 360;
+        int pages = 1, concurrency = 4, quotaDay = 0, quotaMinute = 0;
+        boolean once = false;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--interval" -> minutes = Long.parseLong(args[++i]);
+                case "--pages" -> pages = Integer.parseInt(args[++i]);
+                case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                case "--quota-day" -> quotaDay = Integer.parseInt(args[++i]);
+                case "--quota-minute" -> quotaMinute = Integer.parseInt(args[++i]);
+                case "--once" -> once = true;
+                default -> throw new IllegalArgumentException("Tham số không hợp lệ: " + args[i]);
+            }
+        }
+
+        CseClient client = new CseClient();
+        if (!client.isConfigured()) {
+            System.err.println("Thiếu cấu hình: đặt GOOGLE_CSE_KEY/GOOGLE_CSE_CX (biến môi trường hoặc -D) hoặc lưu trong app.");
+            System.exit(2);
+        }
+        client.applyQuotaOptions(quotaDay, quotaMinute); // trước khi tính chu kỳ theo quota
+        List<Watch> list = loadWatches(Path.of(args[0]));
+        Listener log = (w, r) -> System.err.println(describe(w, r));
+
+        try (PriceSeriesStore store = new PriceSeriesStore(PriceSeriesStore.defaultFile());
+             PriceWatcher watcher = new PriceWatcher(client, store, Duration.ofMinutes(minutes), pages, concurrency, log)) {
+            if (once) {
+                watcher.runAll(list);
+            } else {
+                for (Watch w : list) watcher.add(w);
+                System.err.printf(Locale.ROOT, "Theo dõi %d truy vấn, chu kỳ %d phút%n", list.size(),
+                        watcher.effectiveInterval().toMinutes());
+                Thread.currentThread().join(); // chạy tới khi bị dừng (Ctrl+C)
+            }
+        }
+    }
+
+    static String describe(Watch w, RunResult r) {
+        if (r.error() != null) return w.query() + ": lỗi " + r.error().getMessage();
+        return String.format(Locale.ROOT, "%s: %d kết quả, %d mới, %d đổi, %d không đổi, %d mất — ghi %d điểm giá",
+                w.query(), r.results(), r.added(), r.changed(), r.unchanged(), r.removed(), r.points());
+    }
+
+    /** Đọc file theo dõi (định dạng của {@link BatchSearch}); file chưa có thì trả danh sách rỗng. */
+    static List<Watch> loadWatches(Path file) throws IOException {
+        List<Watch> out = new ArrayList<>();
+        if (!Files.exists(file)) return out;
+        try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int n = 0;
+            while ((line = r.readLine()) != null) {
+                BatchSearch.Job job = BatchSearch.parseLine(++n, line);
+                if (job != null) out.add(new Watch(job.keywords()));
+            }
+        }
+        return out;
+    }
+
+    /** Thêm một dòng vào file theo dõi. */
+    static void appendWatch(Path file, Watch w) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, String.join("\t", w.keywords()) + "\tprice\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /** ~/.googlecse/watches.tsv */
+    static Path defaultWatchFile() {
+        return Path.of(System.getProperty("user.home"), ".googlecse", "watches.tsv");
+    }
+
+    /** Chu kỳ thực tế: chu kỳ đặt, kéo dài nếu số truy vấn hiện tại sẽ dùng quá phần quota dành cho theo dõi. */
+    Duration effectiveInterval() { return Duration.ofMillis(effectiveMillis); }
+
+    int size() { return watches.size(); }
+
+    /** Đổi chu kỳ; áp dụng từ lượt kế tiếp của mỗi truy vấn. */
+    void setInterval(Duration interval) {
+        this.interval = interval;
+        updateInterval();
+    }
+
+    /**
+     * Đặt lịch cho một truy vấn (truy vấn trùng sau chuẩn hoá bị bỏ qua): lượt đầu ở thời điểm ngẫu nhiên trong chu kỳ.
+     * @return false nếu đã theo dõi
+     */
+    boolean add(Watch w) {
+        if (watches.putIfAbsent(CseClient.normalizeQuery(w.query()), w) != null) return false;
+        updateInterval();
+        schedule(w, ThreadLocalRandom.current().nextLong(Math.max(1, effectiveMillis)));
+        return true;
+    }
+
+    /** Chạy mỗi truy vấn một lần, song song trong giới hạn {@code concurrency}, rồi chờ xong. */
+    void runAll(List<Watch> list) throws InterruptedException {
+        try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Watch w : list) exec.submit(() -> runGuarded(w));
+        }
+    }
+
+    private void updateInterval() {
+        long requestsPerRun = (long) watches.size() * pages;
+        long budgetPerDay = Math.max(1, (long) client.quotaLimit() * QUOTA_SHARE_PERCENT / 100);
+        long minMillis = TimeUnit.DAYS.toMillis(1) * requestsPerRun / budgetPerDay;
+        effectiveMillis = Math.max(interval.toMillis(), minMillis);
+    }
+
+    private void schedule(Watch w, long delayMillis) {
+        if (timer.isShutdown()) return;
+        // Thread hẹn giờ chỉ chuyển việc sang virtual thread; lượt sau được đặt lịch khi lượt này xong
+        Runnable run = () -> {
+            runGuarded(w);
+            long base = effectiveMillis;
+            long jitter = base * JITTER_PERCENT / 100;
+            schedule(w, base + ThreadLocalRandom.current().nextLong(-jitter, jitter + 1));
+        };
+        timer.schedule(() -> { workers.execute(run); }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void runGuarded(Watch w) {
+        RunResult r;
+        try {
+            permits.acquire();
+            try {
+                r = runOnce(w);
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            r = new RunResult(0, 0, 0, 0, 0, 0, e);
+        }
+        if (listener != null) listener.onRun(w, r);
+    }
+
+    /** Một lượt: hỏi lại API, so với lượt trước, trích giá của kết quả mới/đổi và ghi vào store. */
+    RunResult runOnce(Watch w) throws Exception {
+        String query = w.query();
+        List<ResultItem> items = new ArrayList<>(pages * CseClient.PAGE_SIZE);
+        for (int p = 0; p < pages; p++) {
+            List<ResultItem> page = client.searchFresh(query, CseClient.PAGE_SIZE, 1 + p * CseClient.PAGE_SIZE);
+            items.addAll(page);
+            if (page.size() < CseClient.PAGE_SIZE) break; // hết kết quả, không tốn thêm quota
+        }
+
+        String key = CseClient.normalizeQuery(query);
+        Snapshot prev = snapshots.getOrDefault(key, Snapshot.EMPTY);
+        long[] links = new long[items.size()];
+        int[] prints = new int[items.size()];
+        boolean[] seenPrev = new boolean[prev.links().length];
+        List<PriceSeriesStore.Observation> obs = new ArrayList<>();
+        int n = 0, added = 0, changed = 0;
+
+        for (ResultItem it : items) {
+            String c = UrlCanonicalizer.canonical(it.link);
+            long h = hash(c);
+            if (indexOf(links, n, h) >= 0) continue; // trùng link trong cùng lượt
+            int fp = it.title.hashCode() * 31 + it.snippet.hashCode();
+            links[n] = h;
+            prints[n] = fp;
+            n++;
+
+            int i = Arrays.binarySearch(prev.links(), h);
+            if (i >= 0) {
+                seenPrev[i] = true;
+                if (prev.fingerprints()[i] == fp) continue; // không đổi: không trích giá lại
+                changed++;
+            } else {
+                added++;
+            }
+            long vnd = PriceExtractor.first(it.snippet);
+            if (vnd < 0) vnd = PriceExtractor.first(it.title);
+            obs.add(new PriceSeriesStore.Observation(c, it.displayLink, vnd));
+        }
+        int removed = 0;
+        for (boolean s : seenPrev) if (!s) removed++;
+
+        int points = store.append(query, obs, System.currentTimeMillis() / 1000);
+        snapshots.put(key, snapshotOf(links, prints, n));
+        return new RunResult(n, added, changed, n - added - changed, removed, points, null);
+    }
+
+    private static Snapshot snapshotOf(long[] links, int[] prints, int n) {
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(links[a], links[b]));
+        long[] l = new long[n];
+        int[] f = new int[n];
+        for (int i = 0; i < n; i++) {
+            l[i] = links[order[i]];
+            f[i] = prints[order[i]];
+        }
+        return new Snapshot(l, f);
+    }
+
+    private static int indexOf(long[] a, int n, long v) {
+        for (int i = 0; i < n; i++) if (a[i] == v) return i;
+        return -1;
+    }
+
+    /** FNV-1a 64-bit trên UTF-16 của link đã chuẩn hoá. */
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    @Override public void close() {
+        timer.shutdownNow();
+        workers.shutdownNow();
+    }
+}
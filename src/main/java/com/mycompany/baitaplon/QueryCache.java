@@ -0,0 +1,127 @@
+package com.mycompany.baitaplon;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache kết quả trong bộ nhớ: LRU có giới hạn số phần tử + TTL.
+ * Các lời gọi trùng key đang chạy song song được gộp lại (single-flight): chỉ một lần gọi loader,
+ * các luồng còn lại chờ cùng kết quả. Lỗi không được cache. Nếu luồng đang tải bị huỷ (interrupt),
+ * các luồng đang chờ không nhận lỗi đó mà tự tải lại.
+ */
+final class QueryCache<K, V> {
+
+    @FunctionalInterface
+    interface Loader<V> {
+        V load() throws Exception;
+    }
+
+    private record Entry<V>(V value, long expiresAtNanos) {}
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    // access-order = true → LinkedHashMap tự sắp theo LRU
+    private final LinkedHashMap<K, Entry<V>> lru;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    QueryCache(int maxEntries, Duration ttl) {
+        this.maxEntries = Math.max(maxEntries, 1);
+        this.ttlNanos = ttl.toNanos();
+        this.lru = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > QueryCache.this.maxEntries;
+            }
+        };
+    }
+
+    V get(K key, Loader<V> loader) throws Exception {
+        while (true) {
+            V cached = peek(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+
+            CompletableFuture<V> mine = new CompletableFuture<>();
+            CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                coalesced.increment();
+                try {
+                    return await(running);
+                } catch (CancellationException abandoned) {
+                    continue; // luồng tải trước bị huỷ giữa chừng
+                }
+            }
+
+            misses.increment();
+            try {
+                V value = loader.load();
+                synchronized (lru) {
+                    lru.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+                }
+                mine.complete(value);
+                return value;
+            } catch (Throwable t) {
+                // Gỡ khỏi inFlight trước khi báo lỗi để luồng chờ tải lại không gặp lại future cũ
+                inFlight.remove(key, mine);
+                if (t instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+                    mine.cancel(false);
+                } else {
+                    mine.completeExceptionally(t);
+                }
+                throw t;
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+    }
+
+    private V peek(K key) {
+        synchronized (lru) {
+            Entry<V> e = lru.get(key);
+            if (e == null) return null;
+            if (System.nanoTime() - e.expiresAtNanos() >= 0) {
+                lru.remove(key);
+                return null;
+            }
+            return e.value();
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> f) throws Exception {
+        try {
+            return f.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception e) throw e;
+            throw ex;
+        }
+    }
+
+    /** Ghi đè giá trị của {@code key} bằng bản vừa tải ngoài cache (ví dụ lượt theo dõi giá luôn hỏi lại API). */
+    void put(K key, V value) {
+        synchronized (lru) {
+            lru.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    void clear() {
+        synchronized (lru) {
+            lru.clear();
+        }
+    }
+
+    long hits() { return hits.sum(); }
+    long misses() { return misses.sum(); }
+    long coalesced() { return coalesced.sum(); }
+}
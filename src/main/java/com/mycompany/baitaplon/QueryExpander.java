@@ -0,0 +1,64 @@
+package com.mycompany.baitaplon;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Sinh các truy vấn con cho chế độ mở rộng: truy vấn đầy đủ, các tổ hợp từ khoá (luôn giữ từ khoá 1, tổ hợp dài
+ * trước), và truy vấn đầy đủ giới hạn {@code site:} theo các domain đã có trong kết quả. Thứ tự trả về là thứ tự ưu tiên.
+ */
+final class QueryExpander {
+    static final int MAX_SITES = 4;
+
+    private QueryExpander() {}
+
+    /**
+     * @param keywords  từ khoá đã bỏ ô trống, phần tử đầu là từ khoá 1
+     * @param priceMode thêm "giá" như {@link CseClient#buildQuery}
+     * @param sites     domain (displayLink) theo thứ tự ưu tiên; chỉ dùng {@value #MAX_SITES} domain đầu
+     */
+    static List<String> expand(List<String> keywords, boolean priceMode, List<String> sites) {
+        if (keywords.isEmpty()) return List.of();
+        // Key là query đã chuẩn hoá: "a b" và "A  b" chỉ gửi một lần
+        Map<String, String> out = new LinkedHashMap<>();
+        String full = CseClient.buildQuery(keywords, priceMode);
+        add(out, full);
+
+        // Tổ hợp con chứa từ khoá 1, bớt dần từ khoá từ phải sang (bitmask trên các từ khoá còn lại)
+        int rest = keywords.size() - 1;
+        for (int size = rest - 1; size >= 0; size--) {
+            for (int mask = 0; mask < 1 << rest; mask++) {
+                if (Integer.bitCount(mask) != size) continue;
+                List<String> combo = new ArrayList<>(size + 1);
+                combo.add(keywords.get(0));
+                for (int i = 0; i < rest; i++) if ((mask & (1 << i)) != 0) combo.add(keywords.get(i + 1));
+                add(out, CseClient.buildQuery(combo, priceMode));
+            }
+        }
+
+        int n = 0;
+        for (String site : sites) {
+            if (n == MAX_SITES) break;
+            String host = siteOf(site);
+            if (host.isEmpty()) continue;
+            if (add(out, full + " site:" + host)) n++;
+        }
+        return List.copyOf(out.values());
+    }
+
+    private static boolean add(Map<String, String> out, String query) {
+        return out.putIfAbsent(CseClient.normalizeQuery(query), query) == null;
+    }
+
+    /** "www.Example.com/path" → "example.com": site: đã gồm cả subdomain nên bỏ "www.". */
+    static String siteOf(String displayLink) {
+        String h = displayLink.trim().toLowerCase(Locale.ROOT);
+        int slash = h.indexOf('/');
+        if (slash >= 0) h = h.substring(0, slash);
+        if (h.startsWith("www.")) h = h.substring(4);
+        return h;
+    }
+}
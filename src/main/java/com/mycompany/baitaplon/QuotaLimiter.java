@@ -0,0 +1,277 @@
+package com.mycompany.baitaplon;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+import java.util.prefs.Preferences;
+
+/**
+ * Giới hạn tốc độ gọi CSE phía client: token bucket theo phút + bộ đếm quota ngày lưu trong Preferences.
+ *
+ * <p>Quota ngày của Google reset lúc 0h giờ Thái Bình Dương nên ngày được tính theo múi giờ đó.
+ * Khi gặp HTTP 429, mọi luồng dùng chung limiter cùng tạm dừng (theo {@code Retry-After} hoặc backoff
+ * có jitter) và tốc độ bị giảm một nửa, sau đó tăng dần lại theo mỗi request thành công.</p>
+ *
+ * <p>App, BatchSearch, SearchServer và PriceWatcher có thể chạy cùng lúc với cùng key, nên bộ đếm ngày của node
+ * Preferences thật nằm trong một file nhỏ ({@code ~/.googlecse/quota/<node>.cnt}) và mỗi lần đổi đều đọc-sửa-ghi
+ * dưới {@link FileLock}. Preferences không dùng được cho việc này: {@code sync()} của bản cài trên file không đọc
+ * lại thay đổi của tiến trình khác một cách tin cậy, và không có khoá bao cả lần đọc lẫn lần ghi. Chỉ đọc thì dùng
+ * khoá chia sẻ và không ghi gì; giao diện dùng {@link #usedTodayCached()}, không chờ khoá.</p>
+ */
+final class QuotaLimiter {
+
+    static final String PREF_DAY_LIMIT    = "GOOGLE_CSE_QUOTA_DAY_LIMIT";
+    static final String PREF_MINUTE_LIMIT = "GOOGLE_CSE_QUOTA_MINUTE_LIMIT";
+    private static final String PREF_USED_DATE = "GOOGLE_CSE_QUOTA_USED_DATE";
+    private static final String PREF_USED      = "GOOGLE_CSE_QUOTA_USED";
+
+    private static final ZoneId QUOTA_ZONE = ZoneId.of("America/Los_Angeles");
+    private static final long BASE_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS  = 60_000;
+
+    static final class QuotaExceededException extends RuntimeException {
+        QuotaExceededException(String message) { super(message); }
+    }
+
+    private final Preferences pref;
+    private volatile int perDay;          // đọc không cần khoá (giao diện), chỉ ghi trong setLimits
+    private volatile int perMinute;
+
+    // token bucket (đơn vị: token, thời gian: nanoTime)
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private double rateFactor = 1.0;      // giảm khi bị 429, hồi dần khi thành công
+    private long pausedUntil = Long.MIN_VALUE;
+    private boolean paused;
+
+    private String usedDate;
+    private int usedToday;
+
+    private record Used(String date, int count) {}
+    private volatile Used used;           // giá trị đọc/ghi gần nhất, cho người đọc không được chờ khoá
+
+    // Bộ đếm ngày dùng chung giữa các tiến trình; null với node không lưu xuống đĩa (ví dụ Preferences trong bộ nhớ
+    // của LoadDriver) hoặc khi không tạo được file — khi đó chỉ đếm trong tiến trình này
+    private final Path counterFile;
+    // FileLock là khoá của cả JVM (limiter thứ hai cùng file sẽ gặp OverlappingFileLockException), nên các limiter
+    // cùng một file đếm trong JVM xếp hàng qua một monitor chung trước khi lấy khoá file
+    private static final ConcurrentHashMap<Path, Object> FILE_MONITORS = new ConcurrentHashMap<>();
+    private final Object fileMonitor;
+
+    QuotaLimiter(Preferences pref) {
+        this.pref = pref;
+        this.perDay = pref.getInt(PREF_DAY_LIMIT, 100);
+        this.perMinute = pref.getInt(PREF_MINUTE_LIMIT, 60);
+        this.tokens = burst();
+        this.usedDate = pref.get(PREF_USED_DATE, "");
+        this.usedToday = pref.getInt(PREF_USED, 0);
+        this.counterFile = pref.isUserNode() ? counterFileFor(pref) : null;
+        this.fileMonitor = counterFile == null ? this : FILE_MONITORS.computeIfAbsent(counterFile, k -> new Object());
+        this.used = new Used(usedDate, usedToday);
+    }
+
+    private static Path counterFileFor(Preferences pref) {
+        try {
+            Path dir = Path.of(System.getProperty("user.home"), ".googlecse", "quota");
+            Files.createDirectories(dir);
+            return dir.resolve(Integer.toHexString(pref.absolutePath().hashCode()) + ".cnt");
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    synchronized void setLimits(int perDay, int perMinute) {
+        this.perDay = Math.max(perDay, 1);
+        this.perMinute = Math.max(perMinute, 1);
+        pref.putInt(PREF_DAY_LIMIT, this.perDay);
+        pref.putInt(PREF_MINUTE_LIMIT, this.perMinute);
+        tokens = Math.min(tokens, burst());
+    }
+
+    /**
+     * Chờ tới lượt gửi một request và trừ 1 đơn vị quota ngày.
+     * @throws QuotaExceededException nếu quota ngày đã hết
+     */
+    void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos <= 0) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /** Trả lại lượt vừa {@link #acquire} khi request bị huỷ trước lúc gửi đi. */
+    synchronized void release() {
+        tokens = Math.min(burst(), tokens + 1);
+        updateUsed(u -> Math.max(0, u - 1));
+    }
+
+    private synchronized long reserve() {
+        // Kiểm tra và trừ quota trong cùng một lần giữ khoá: hai tiến trình không thể cùng lấy lượt cuối
+        updateUsed(u -> {
+            if (u >= perDay) throw new QuotaExceededException("Đã dùng hết quota ngày (" + u + "/" + perDay + ")");
+            return u + 1;
+        });
+
+        long now = System.nanoTime();
+        double rate = ratePerNano();
+        tokens = Math.min(burst(), tokens + (now - lastRefill) * rate);
+        lastRefill = now;
+
+        // Cho phép token âm: request sau phải chờ phần "nợ" của request trước
+        tokens -= 1;
+        long wait = tokens >= 0 ? 0 : (long) (-tokens / rate);
+        if (paused) wait = Math.max(wait, pausedUntil - now);
+        return wait;
+    }
+
+    /**
+     * Ghi nhận một response 429/503: tạm dừng mọi luồng rồi trả về thời gian nên chờ trước lần thử lại.
+     * Request bị từ chối không tính vào quota ngày.
+     */
+    synchronized Duration onThrottled(HttpResponse<?> resp, int attempt) {
+        long backoff = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempt, 10));
+        long delayMs = ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+        Duration retryAfter = retryAfter(resp);
+        if (retryAfter != null) delayMs = Math.max(delayMs, retryAfter.toMillis());
+
+        long now = System.nanoTime();
+        long until = now + TimeUnit.MILLISECONDS.toNanos(delayMs);
+        if (!paused || until - pausedUntil > 0) pausedUntil = until;
+        paused = true;
+
+        rateFactor = Math.max(0.1, rateFactor / 2);
+        updateUsed(u -> Math.max(0, u - 1));
+        return Duration.ofNanos(pausedUntil - now);
+    }
+
+    synchronized void onSuccess() {
+        rateFactor = Math.min(1.0, rateFactor + 0.05);
+        if (paused && System.nanoTime() - pausedUntil >= 0) paused = false;
+    }
+
+    /** Số lượt đã dùng hôm nay, đọc lại từ file đếm chung (khoá chia sẻ, không ghi). */
+    synchronized int usedToday() {
+        if (counterFile != null) {
+            synchronized (fileMonitor) {
+                try (FileChannel ch = FileChannel.open(counterFile, StandardOpenOption.READ)) {
+                    ch.lock(0, Long.MAX_VALUE, true); // nhả khi đóng channel
+                    readCounter(ch);
+                } catch (IOException | NumberFormatException | OverlappingFileLockException e) {
+                    // chưa có file hoặc không đọc được: dùng giá trị trong tiến trình
+                }
+            }
+        }
+        rollDay();
+        used = new Used(usedDate, usedToday);
+        return usedToday;
+    }
+
+    /** Giá trị lần {@link #acquire}/{@link #release}/{@link #usedToday} gần nhất; không chặn, dùng được trên EDT. */
+    int usedTodayCached() {
+        Used u = used;
+        return u.date().equals(LocalDate.now(QUOTA_ZONE).toString()) ? u.count() : 0;
+    }
+
+    int dailyLimit() { return perDay; }
+
+    int minuteLimit() { return perMinute; }
+
+    private double burst() {
+        return Math.max(1, Math.min(perMinute, 10));
+    }
+
+    private double ratePerNano() {
+        return perMinute * rateFactor / TimeUnit.MINUTES.toNanos(1);
+    }
+
+    /**
+     * Đổi bộ đếm ngày: đọc giá trị mới nhất (kể cả của tiến trình khác), sang ngày mới thì về 0, áp {@code f}
+     * rồi ghi lại, tất cả dưới khoá file. Exception ném từ {@code f} bỏ qua việc ghi.
+     * @return giá trị mới
+     */
+    private int updateUsed(IntUnaryOperator f) {
+        if (counterFile != null) {
+            synchronized (fileMonitor) {
+                try (FileChannel ch = FileChannel.open(counterFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)) {
+                    ch.lock(); // nhả khi đóng channel
+                    readCounter(ch);
+                    rollDay();
+                    usedToday = f.applyAsInt(usedToday);
+                    ch.truncate(0);
+                    ch.write(ByteBuffer.wrap((usedDate + " " + usedToday).getBytes(StandardCharsets.US_ASCII)), 0);
+                    mirrorToPrefs();
+                    return usedToday;
+                } catch (IOException | NumberFormatException | OverlappingFileLockException e) {
+                    // file hỏng hoặc không đọc được: đếm tiếp trong tiến trình
+                }
+            }
+        }
+        rollDay();
+        usedToday = f.applyAsInt(usedToday);
+        mirrorToPrefs();
+        return usedToday;
+    }
+
+    /** Đọc "ngày số-lượt" từ file đếm; file trống (lần đầu) thì giữ giá trị đang có (từ Preferences). */
+    private void readCounter(FileChannel ch) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(64);
+        while (ch.read(buf) >= 0 && buf.hasRemaining()) { /* đọc hết file */ }
+        String[] parts = new String(buf.array(), 0, buf.position(), StandardCharsets.US_ASCII).trim().split(" ");
+        if (parts.length == 2) {
+            int n = Integer.parseInt(parts[1]);
+            usedDate = parts[0];
+            usedToday = n;
+        }
+    }
+
+    private void mirrorToPrefs() {
+        pref.put(PREF_USED_DATE, usedDate);
+        pref.putInt(PREF_USED, usedToday);
+        used = new Used(usedDate, usedToday);
+    }
+
+    private void rollDay() {
+        String today = LocalDate.now(QUOTA_ZONE).toString();
+        if (!today.equals(usedDate)) {
+            usedDate = today;
+            usedToday = 0;
+        }
+    }
+
+    /** Retry-After có thể là số giây hoặc một HTTP-date. */
+    private static Duration retryAfter(HttpResponse<?> resp) {
+        String v = resp.headers().firstValue("Retry-After").orElse(null);
+        if (v == null || v.isBlank()) return null;
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(v.trim())));
+        } catch (NumberFormatException ignored) {}
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(v.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            Duration d = Duration.between(ZonedDateTime.now(at.getZone()), at);
+            return d.isNegative() ? Duration.ZERO : d;
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.mycompany.baitaplon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Loại kết quả trùng khi chúng đang đổ về: trùng link sau khi chuẩn hoá ({@link UrlCanonicalizer}),
+ * hoặc snippet gần giống (bản đăng lại) theo SimHash 64 bit với khoảng cách Hamming ≤ {@value #MAX_DISTANCE}.
+ *
+ * <p>Tra fingerprint dùng {@value #BANDS} band ~9 bit: hai fingerprint lệch ≤ {@value #MAX_DISTANCE} bit chắc chắn
+ * trùng nhau ở ít nhất một band, nên chỉ cần so với các ứng viên cùng band thay vì toàn bộ.</p>
+ */
+final class ResultDeduper {
+
+    static final int MAX_DISTANCE = 6;
+    private static final int BANDS = MAX_DISTANCE + 1;
+    private static final int MIN_TOKENS = 6; // snippet quá ngắn thì SimHash không đáng tin
+
+    private final HashSet<String> links = new HashSet<>();
+    private long[] fingerprints = new long[64];
+    private int count;
+    private final HashMap<Integer, IntList> bands = new HashMap<>();
+    private int dropped;
+
+    /** @return true nếu kết quả mới, false nếu là bản trùng (và bị bỏ) */
+    synchronized boolean accept(ResultItem it) {
+        if (!links.add(UrlCanonicalizer.canonical(it.link))) {
+            dropped++;
+            return false;
+        }
+        List<String> tokens = ResultIndex.tokenize(it.snippet);
+        if (tokens.size() < MIN_TOKENS) return true;
+
+        long fp = simHash(tokens);
+        for (int b = 0; b < BANDS; b++) {
+            IntList cands = bands.get(bandKey(b, fp));
+            if (cands == null) continue;
+            for (int k = 0; k < cands.size(); k++) {
+                if (Long.bitCount(fingerprints[cands.get(k)] ^ fp) <= MAX_DISTANCE) {
+                    dropped++;
+                    return false;
+                }
+            }
+        }
+
+        if (count == fingerprints.length) fingerprints = Arrays.copyOf(fingerprints, count * 2);
+        int id = count++;
+        fingerprints[id] = fp;
+        for (int b = 0; b < BANDS; b++) bands.computeIfAbsent(bandKey(b, fp), k -> new IntList(2)).add(id);
+        return true;
+    }
+
+    /** Lọc một trang, giữ thứ tự. */
+    List<ResultItem> filter(List<ResultItem> page) {
+        List<ResultItem> out = new ArrayList<>(page.size());
+        for (ResultItem it : page) if (accept(it)) out.add(it);
+        return out;
+    }
+
+    synchronized int dropped() { return dropped; }
+
+    synchronized void clear() {
+        links.clear();
+        bands.clear();
+        count = 0;
+        dropped = 0;
+    }
+
+    private static int bandKey(int band, long fp) {
+        int from = band * 64 / BANDS, to = (band + 1) * 64 / BANDS;
+        long bits = (fp >>> from) & ((1L << (to - from)) - 1);
+        return (band << 16) | (int) bits;
+    }
+
+    /** SimHash trên từng từ và từng cặp từ liên tiếp (đã bỏ dấu). */
+    static long simHash(List<String> tokens) {
+        int[] v = new int[64];
+        for (int i = 0; i < tokens.size(); i++) {
+            long uni = fnv(tokens.get(i), 0xcbf29ce484222325L);
+            add(v, mix(uni));
+            if (i + 1 < tokens.size()) add(v, mix(fnv(tokens.get(i + 1), uni ^ ' ')));
+        }
+        long fp = 0;
+        for (int bit = 0; bit < 64; bit++) if (v[bit] > 0) fp |= 1L << bit;
+        return fp;
+    }
+
+    private static void add(int[] v, long h) {
+        for (int bit = 0; bit < 64; bit++) v[bit] += ((h >>> bit) & 1) != 0 ? 1 : -1;
+    }
+
+    private static long fnv(String s, long h) {
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /** Trộn thêm để mọi bit phân bố đều (FNV thuần yếu với chuỗi ngắn). */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
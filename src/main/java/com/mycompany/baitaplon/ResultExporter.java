@@ -0,0 +1,207 @@
+package com.mycompany.baitaplon;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ghi kết quả ra CSV hoặc JSONL theo dòng, ngay khi nhận được: không giữ lại gì ngoài bộ đệm ghi, nên bộ nhớ
+ * không phụ thuộc số kết quả. Định dạng theo đuôi file: {@code .csv} hoặc {@code .jsonl}/{@code .json},
+ * thêm {@code .gz} để nén gzip.
+ *
+ * <p>Các cột: {@code line} (dòng input của batch, bỏ trống nếu không có), {@code query}, {@code price} (chế độ giá),
+ * {@code title}, {@code link}, {@code snippet}, {@code displayLink}, {@code snippetPrice} (giá trong snippet/title,
+ * chỉ ở chế độ giá) và {@code pagePrice} (giá đọc trên trang gốc nếu đã kiểm tra). JSONL bỏ các trường trống.
+ * Ô CSV bắt đầu bằng {@code = + - @}, tab hoặc CR được thêm {@code '} ở đầu để Excel không hiểu thành công thức.</p>
+ */
+final class ResultExporter implements Closeable {
+
+    private static final int BUFFER = 1 << 16;
+    private static final String[] CSV_HEADER =
+            {"line", "query", "price", "title", "link", "snippet", "displayLink", "snippetPrice", "pagePrice"};
+
+    enum Format { CSV, JSONL }
+
+    /** Nguồn của một nhóm kết quả: dòng input ({@code 0} = không có), truy vấn và chế độ giá. */
+    record Source(int line, String query, boolean priceMode) {}
+
+    private final Format format;
+    private final OutputStream out;
+    private final Path tmp, target;     // chỉ khi openReplacing
+    private boolean closed, committed;
+    private final JsonGenerator json;   // chỉ khi JSONL
+    private final Writer csv;           // chỉ khi CSV
+    private long rows;
+
+    private ResultExporter(Format format, OutputStream out, Path tmp, Path target) throws IOException {
+        this.format = format;
+        this.out = out;
+        this.tmp = tmp;
+        this.target = target;
+        if (format == Format.JSONL) {
+            json = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+            json.setRootValueSeparator(null);
+            csv = null;
+        } else {
+            json = null;
+            csv = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            csv.write('\uFEFF'); // BOM: Excel mới đọc đúng tiếng Việt trong CSV UTF-8
+            writeCsvRow(CSV_HEADER);
+        }
+    }
+
+    /** Mở (tạo mới hoặc ghi đè) {@code file}; định dạng và nén theo đuôi file. */
+    static ResultExporter open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        return open(file, ch, null);
+    }
+
+    /**
+     * Như {@link #open} nhưng ghi vào file tạm cạnh {@code file}: chỉ {@link #commit()} mới thay {@code file} (đổi tên
+     * nguyên tử); đóng khi chưa commit thì xoá file tạm, file cũ (nếu có) giữ nguyên.
+     */
+    static ResultExporter openReplacing(Path file) throws IOException {
+        Path tmp = file.resolveSibling("." + file.getFileName() + "." + Long.toHexString(System.nanoTime()) + ".part");
+        FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            return open(file, ch, tmp);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    private static ResultExporter open(Path file, FileChannel ch, Path tmp) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean gzip = name.endsWith(".gz");
+        if (gzip) name = name.substring(0, name.length() - 3);
+        Format format = name.endsWith(".csv") ? Format.CSV : Format.JSONL;
+
+        OutputStream os = new BufferedOutputStream(Channels.newOutputStream(ch), BUFFER);
+        try {
+            if (gzip) os = new GZIPOutputStream(os, BUFFER);
+            return new ResultExporter(format, os, tmp, file);
+        } catch (IOException | RuntimeException e) {
+            os.close();
+            throw e;
+        }
+    }
+
+    Format format() { return format; }
+
+    /** Số dòng kết quả đã ghi. */
+    synchronized long rows() { return rows; }
+
+    /** Ghi một nhóm kết quả cùng nguồn (an toàn khi gọi từ nhiều thread). */
+    synchronized void write(Source src, List<ResultItem> items) throws IOException {
+        for (ResultItem it : items) {
+            long snippetPrice = -1;
+            if (src.priceMode()) {
+                snippetPrice = PriceExtractor.first(it.snippet);
+                if (snippetPrice < 0) snippetPrice = PriceExtractor.first(it.title);
+            }
+            long pagePrice = it.verifiedPrice;
+            if (format == Format.JSONL) writeJson(src, it, snippetPrice, pagePrice);
+            else writeCsvRow(src.line() > 0 ? Integer.toString(src.line()) : "", src.query(),
+                    Boolean.toString(src.priceMode()), it.title, it.link, it.snippet, it.displayLink,
+                    snippetPrice >= 0 ? Long.toString(snippetPrice) : "", pagePrice >= 0 ? Long.toString(pagePrice) : "");
+            rows++;
+        }
+    }
+
+    private void writeJson(Source src, ResultItem it, long snippetPrice, long pagePrice) throws IOException {
+        json.writeStartObject();
+        if (src.line() > 0) json.writeNumberField("line", src.line());
+        json.writeStringField("query", src.query());
+        json.writeBooleanField("price", src.priceMode());
+        json.writeStringField("title", it.title);
+        json.writeStringField("link", it.link);
+        json.writeStringField("snippet", it.snippet);
+        json.writeStringField("displayLink", it.displayLink);
+        if (snippetPrice >= 0) json.writeNumberField("snippetPrice", snippetPrice);
+        if (pagePrice >= 0) json.writeNumberField("pagePrice", pagePrice);
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    // RFC 4180: trường có dấu phẩy, ngoặc kép hoặc xuống dòng thì bọc trong ngoặc kép, ngoặc kép nhân đôi
+    private void writeCsvRow(String... cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) csv.write(',');
+            String c = cells[i];
+            if (!c.isEmpty() && "=+-@\t\r".indexOf(c.charAt(0)) >= 0) c = "'" + c; // tiêu đề/snippet lạ thành công thức
+            boolean quote = false;
+            for (int k = 0; k < c.length() && !quote; k++) {
+                char ch = c.charAt(k);
+                quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+            }
+            if (!quote) {
+                csv.write(c);
+                continue;
+            }
+            csv.write('"');
+            int from = 0;
+            for (int q; (q = c.indexOf('"', from)) >= 0; from = q + 1) {
+                csv.write(c, from, q + 1 - from);
+                csv.write('"');
+            }
+            csv.write(c, from, c.length() - from);
+            csv.write('"');
+        }
+        csv.write("\r\n");
+    }
+
+    /** Đẩy bộ đệm xuống file (gzip vẫn giữ khối đang nén tới khi đóng). */
+    synchronized void flush() throws IOException {
+        if (json != null) json.flush(); else csv.flush();
+    }
+
+    /** Đóng và thay file đích bằng file tạm (chỉ với {@link #openReplacing}). */
+    synchronized void commit() throws IOException {
+        if (tmp == null) throw new IllegalStateException("không mở bằng openReplacing");
+        closeStreams();
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+    }
+
+    @Override public synchronized void close() throws IOException {
+        try {
+            closeStreams();
+        } finally {
+            if (tmp != null && !committed) Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void closeStreams() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (json != null) json.close(); else csv.close();
+        } finally {
+            out.close();
+        }
+    }
+}
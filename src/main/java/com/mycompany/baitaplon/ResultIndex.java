@@ -0,0 +1,205 @@
+package com.mycompany.baitaplon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Chỉ mục ngược (inverted index) trên title + snippet của mọi kết quả đã gặp, để tìm lại offline
+ * mà không tốn quota. Từ khoá được bỏ dấu tiếng Việt ("giá" → "gia", "đ" → "d") nên gõ không dấu vẫn khớp.
+ *
+ * <p>Mỗi term giữ một posting list là mảng int tăng dần (docId được cấp theo thứ tự thêm vào), truy vấn
+ * là phép giao các posting list, bắt đầu từ list ngắn nhất. Mỗi link chỉ được đánh chỉ mục một lần.</p>
+ *
+ * <p>Tài liệu nằm trong {@link ResultStore} (theo cột, UTF-8) vì chỉ mục sống suốt phiên và có thể giữ hàng trăm
+ * nghìn kết quả; việc chống trùng link dùng bảng băm địa chỉ mở chỉ chứa docId, không giữ thêm String nào.</p>
+ */
+final class ResultIndex {
+
+    private static final int FILE_MAGIC = 0x52494458; // "RIDX"
+
+    private final ResultStore docs = new ResultStore();
+    private final HashMap<String, IntList> postings = new HashMap<>();
+
+    // docId + 1 theo hash của link (0 = trống), dò tuyến tính; hash của từng doc giữ riêng để so nhanh và rehash
+    // không phải giải mã lại link
+    private int[] byLink = new int[1024];
+    private final IntList linkHashes = new IntList(1024);
+
+    /** Thêm một kết quả; trả về docId (kết quả đã có thì trả docId cũ). */
+    synchronized int add(ResultItem it) {
+        int h = mix(it.link.hashCode());
+        int mask = byLink.length - 1;
+        int slot = h & mask;
+        for (; byLink[slot] != 0; slot = (slot + 1) & mask) {
+            int id = byLink[slot] - 1;
+            if (linkHashes.get(id) == h && docs.link(id).equals(it.link)) return id;
+        }
+
+        int id = docs.add(it);
+        linkHashes.add(h);
+        byLink[slot] = id + 1;
+        if (docs.size() * 2 > byLink.length) rehash();
+        for (String term : tokenize(it.title + " " + it.snippet)) {
+            IntList pl = postings.computeIfAbsent(term, k -> new IntList());
+            if (pl.last() != id) pl.add(id); // term lặp trong cùng tài liệu chỉ ghi một lần
+        }
+        return id;
+    }
+
+    synchronized int size() { return docs.size(); }
+
+    /** Ước lượng heap của phần dữ liệu tài liệu (không gồm posting list). */
+    synchronized long heapBytes() { return docs.heapBytes() + 32 + (byLink.length + linkHashes.a.length) * 4L; }
+
+    private void rehash() {
+        int[] old = byLink;
+        byLink = new int[old.length * 2];
+        int mask = byLink.length - 1;
+        for (int v : old) {
+            if (v == 0) continue;
+            int slot = linkHashes.get(v - 1) & mask;
+            while (byLink[slot] != 0) slot = (slot + 1) & mask;
+            byLink[slot] = v;
+        }
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16) ^ (h >>> 7);
+    }
+
+    /**
+     * Trả các kết quả chứa tất cả từ trong {@code query} (AND), mới nhất trước.
+     */
+    synchronized List<ResultItem> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) return List.of();
+
+        IntList[] lists = new IntList[terms.size()];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(terms.get(i));
+            if (lists[i] == null) return List.of();
+        }
+        Arrays.sort(lists, (x, y) -> Integer.compare(x.size, y.size));
+
+        int[] acc = Arrays.copyOf(lists[0].a, lists[0].size);
+        int n = acc.length;
+        for (int i = 1; i < lists.length && n > 0; i++) n = intersect(acc, n, lists[i]);
+
+        List<ResultItem> out = new ArrayList<>(Math.min(n, limit));
+        for (int i = n - 1; i >= 0 && out.size() < limit; i--) out.add(docs.get(acc[i]));
+        return out;
+    }
+
+    /**
+     * Giao {@code acc[0..n)} với {@code pl} tại chỗ. Hai list cỡ gần nhau thì trộn tuyến tính,
+     * còn khi {@code pl} dài hơn nhiều thì tìm nhị phân từng phần tử của acc.
+     */
+    private static int intersect(int[] acc, int n, IntList pl) {
+        int k = 0;
+        if ((long) n * 16 >= pl.size) {
+            for (int i = 0, j = 0; i < n && j < pl.size; ) {
+                int x = acc[i], y = pl.a[j];
+                if (x < y) i++;
+                else if (x > y) j++;
+                else { acc[k++] = x; i++; j++; }
+            }
+            return k;
+        }
+        for (int i = 0, from = 0; i < n; i++) {
+            int pos = Arrays.binarySearch(pl.a, from, pl.size, acc[i]);
+            if (pos >= 0) {
+                acc[k++] = acc[i];
+                from = pos + 1;
+            } else {
+                from = -pos - 1;
+                if (from >= pl.size) break;
+            }
+        }
+        return k;
+    }
+
+    // ====== Lưu / nạp ======
+
+    /** Chỉ lưu tài liệu; posting list được dựng lại khi nạp. */
+    synchronized void save(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(docs.size());
+            for (int i = 0; i < docs.size(); i++) {
+                ResultItem it = docs.get(i);
+                out.writeUTF(it.title);
+                out.writeUTF(it.link);
+                out.writeUTF(it.snippet);
+                out.writeUTF(it.displayLink);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Nạp thêm tài liệu từ file (link đã có trong chỉ mục được bỏ qua). File được đọc hết vào bảng tạm rồi mới thêm,
+     * nên file hỏng giữa chừng không để lại chỉ mục dở.
+     */
+    void loadFrom(Path file) throws IOException {
+        if (!Files.exists(file)) return;
+        ResultStore loaded = new ResultStore();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != FILE_MAGIC) throw new IOException("File chỉ mục không hợp lệ: " + file);
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                loaded.add(new ResultItem(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF()));
+            }
+        }
+        synchronized (this) {
+            for (int i = 0; i < loaded.size(); i++) add(loaded.get(i));
+        }
+    }
+
+    /** ~/.googlecse/index.bin */
+    static Path defaultFile() {
+        return Path.of(System.getProperty("user.home"), ".googlecse", "index.bin");
+    }
+
+    // ====== Chuẩn hoá ======
+
+    static List<String> tokenize(String text) {
+        String s = fold(text);
+        List<String> out = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            boolean word = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (word && start < 0) start = i;
+            else if (!word && start >= 0) {
+                out.add(s.substring(start, i));
+                start = -1;
+            }
+        }
+        return out;
+    }
+
+    /** Bỏ dấu tiếng Việt và đưa về chữ thường: "Giá Đặc Biệt" → "gia dac biet". */
+    static String fold(String s) {
+        String d = Normalizer.normalize(s, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(d.length());
+        for (int i = 0; i < d.length(); i++) {
+            char c = d.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (c == 'đ' || c == 'Đ') c = 'd';
+            sb.append(Character.toLowerCase(c));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,21 @@
+package com.mycompany.baitaplon;
+
+/** Một kết quả tìm kiếm: chỉ giữ 4 trường app thực sự dùng, cộng giá đọc từ trang gốc nếu đã kiểm tra. */
+final class ResultItem {
+    static final long NOT_CHECKED = -1;
+    static final long NO_PRICE = -2;
+
+    final String title, link, snippet, displayLink;
+
+    // Ghi bởi LinkPriceFetcher (thread tải), đọc trên EDT khi vẽ; không lưu vào cache/chỉ mục
+    volatile long verifiedPrice = NOT_CHECKED;
+
+    ResultItem(String title, String link, String snippet, String displayLink) {
+        this.title = title == null ? "" : title;
+        this.link = link == null ? "" : link;
+        this.snippet = snippet == null ? "" : snippet;
+        this.displayLink = displayLink == null ? "" : displayLink;
+    }
+
+    @Override public String toString() { return title; }
+}
@@ -0,0 +1,126 @@
+package com.mycompany.baitaplon;
+
+import javax.swing.AbstractListModel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ListModel cho danh sách kết quả: giữ toàn bộ kết quả (theo cột, {@link ResultStore}) + {@link DomainIndex}, và
+ * hiển thị hoặc tất cả, hoặc chỉ các dòng của một domain. Đổi bộ lọc chỉ phát một event; thêm một trang chỉ phát
+ * một {@code intervalAdded} cho phần đuôi mới của view hiện tại. {@link ResultItem} chỉ được dựng cho dòng được hỏi.
+ */
+final class ResultListModel extends AbstractListModel<ResultItem> {
+
+    private final ResultStore all = new ResultStore();
+    private final DomainIndex domains = new DomainIndex();
+
+    private IntList view;              // null = tất cả
+    private String filter;             // null = tất cả
+    private ResultItem emptyItem;      // hiện khi view rỗng (null = không hiện gì)
+    private int generation;            // tăng mỗi khi thay toàn bộ kết quả
+
+    @Override public int getSize() {
+        int n = viewSize();
+        return n == 0 && emptyItem != null ? 1 : n;
+    }
+
+    @Override public ResultItem getElementAt(int index) {
+        if (viewSize() == 0) return emptyItem;
+        return all.get(view == null ? index : view.get(index));
+    }
+
+    /** Chỉ số (trong toàn bộ kết quả) của dòng {@code index} của view; -1 nếu là dòng "trống". */
+    int rowOf(int index) {
+        if (viewSize() == 0) return -1;
+        return view == null ? index : view.get(index);
+    }
+
+    /** Đổi mỗi khi toàn bộ kết quả bị thay (không đổi khi chỉ thêm trang hay đổi bộ lọc). */
+    int generation() { return generation; }
+
+    private int viewSize() {
+        if (filter == null) return all.size();
+        return view == null ? 0 : view.size();
+    }
+
+    /** Số kết quả (không lọc). */
+    int total() { return all.size(); }
+
+    /** Kết quả thứ {@code row} trong toàn bộ (không lọc), dựng khi được hỏi. */
+    ResultItem row(int row) { return all.get(row); }
+
+    /** Ghi giá đọc từ trang gốc cho dòng {@code row} (xem {@link #rowOf}); không phát event, người gọi tự vẽ lại. */
+    void setVerifiedPrice(int row, long vnd) { all.setVerifiedPrice(row, vnd); }
+
+    /** Ước lượng heap của phần dữ liệu kết quả. */
+    long heapBytes() { return all.heapBytes(); }
+
+    List<String> domains() { return domains.domains(); }
+
+    /** Số kết quả của một domain (không phân biệt hoa thường). */
+    int domainCount(String domain) {
+        IntList rows = domains.rows(domain);
+        return rows == null ? 0 : rows.size();
+    }
+
+    String filter() { return filter; }
+
+    /**
+     * Thêm một trang kết quả vào cuối. Trả về các domain lần đầu xuất hiện để cập nhật danh sách domain.
+     */
+    List<String> append(List<ResultItem> page) {
+        if (page.isEmpty()) return List.of();
+        int oldSize = getSize();
+        boolean wasEmpty = viewSize() == 0;
+
+        List<String> newDomains = new ArrayList<>(0);
+        for (ResultItem it : page) {
+            int row = all.add(it);
+            String d = domains.add(it.displayLink, row);
+            if (d != null) newDomains.add(d);
+        }
+        // bucket của domain đang lọc có thể vừa được tạo
+        if (filter != null && view == null) view = domains.rows(filter);
+
+        int newSize = getSize();
+        if (wasEmpty && oldSize > 0) fireContentsChanged(this, 0, Math.max(oldSize, newSize) - 1); // thay dòng "trống"
+        else if (newSize > oldSize) fireIntervalAdded(this, oldSize, newSize - 1);
+        return newDomains;
+    }
+
+    /** Thay toàn bộ kết quả (ví dụ kết quả tìm offline), bỏ bộ lọc. */
+    void setResults(List<ResultItem> items) {
+        int oldSize = getSize();
+        all.clear();
+        domains.clear();
+        generation++;
+        filter = null;
+        view = null;
+        for (ResultItem it : items) domains.add(it.displayLink, all.add(it));
+        fireSwitched(oldSize);
+    }
+
+    void clear() {
+        setResults(List.of());
+    }
+
+    /** Lọc theo domain ({@code null} = tất cả). */
+    void setFilter(String domain) {
+        int oldSize = getSize();
+        filter = domain;
+        view = domain == null ? null : domains.rows(domain);
+        fireSwitched(oldSize);
+    }
+
+    void setEmptyItem(ResultItem item) {
+        int oldSize = getSize();
+        emptyItem = item;
+        if (viewSize() == 0) fireSwitched(oldSize);
+    }
+
+    /** Một event duy nhất cho cả việc đổi nội dung lẫn đổi kích thước. */
+    private void fireSwitched(int oldSize) {
+        int n = Math.max(oldSize, getSize());
+        if (n > 0) fireContentsChanged(this, 0, n - 1);
+    }
+}
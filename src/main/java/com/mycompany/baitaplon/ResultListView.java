@@ -0,0 +1,350 @@
+package com.mycompany.baitaplon;
+
+import javax.swing.*;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+
+/**
+ * Danh sách kết quả ảo hoá thay cho JList: chỉ đo và vẽ các dòng đang hiện. JList với chiều cao
+ * dòng thay đổi đo lại toàn bộ dòng mỗi khi model đổi và dò tuyến tính từ đầu để tìm dòng ở toạ độ y,
+ * nên chậm dần theo số kết quả. Ở đây chiều cao từng kết quả được đo một lần cho mỗi bề rộng và
+ * nhớ theo chỉ số dòng trong toàn bộ kết quả ({@link ResultListModel#rowOf}, đổi bộ lọc không phải đo lại); dòng chưa đo
+ * dùng chiều cao ước lượng. Vị trí dòng nằm trong cây Fenwick: tìm dòng theo y và cập nhật một dòng
+ * đều O(log n). Mọi phương thức gọi trên EDT.
+ */
+final class ResultListView extends JComponent implements Scrollable, ListDataListener {
+    private static final int DEFAULT_ESTIMATE = 96;
+    private static final int UNIT_INCREMENT = 24;
+
+    private final ResultListModel model;
+    private final ResultRenderer renderer;
+    private final CellRendererPane rendererPane = new CellRendererPane();
+    private final DefaultListSelectionModel selection = new DefaultListSelectionModel();
+
+    // Chiều cao theo chỉ số dòng trong toàn bộ kết quả (model.rowOf): > 0 đã đo ở cacheWidth, < 0 đo ở bề rộng cũ (dùng làm
+    // ước lượng), 0 chưa đo
+    private int[] cache = new int[0];
+    private int cacheWidth = -1;
+    private int cacheGeneration;
+    private long measuredSum;
+    private int measuredCount;
+
+    // Chiều cao hiện dùng của từng dòng trong view + cây Fenwick để có tổng tiền tố
+    private int[] heights = new int[0];
+    private int[] tree = new int[1];
+    private int size;
+
+    ResultListView(ResultListModel model, ResultRenderer renderer) {
+        this.model = model;
+        this.renderer = renderer;
+        setOpaque(true);
+        setFocusable(true);
+        add(rendererPane);
+        selection.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        selection.addListSelectionListener(e -> repaint());
+        model.addListDataListener(this);
+        installMouse();
+        installKeys();
+        updateUI();
+        rebuild();
+    }
+
+    @Override public void updateUI() {
+        super.updateUI();
+        Color bg = UIManager.getColor("List.background");
+        setBackground(bg != null ? bg : Color.WHITE);
+        SwingUtilities.updateComponentTreeUI(renderer); // renderer không nằm trong cây component
+        if (cache != null) invalidateHeights();
+    }
+
+    // ---------- API giống JList ----------
+
+    ResultItem getSelectedValue() {
+        int i = selection.getMinSelectionIndex();
+        return i >= 0 && i < size ? model.getElementAt(i) : null;
+    }
+
+    int getSelectedIndex() { return selection.getMinSelectionIndex(); }
+
+    void setSelectedIndex(int index) {
+        if (index < 0 || index >= size) return;
+        selection.setSelectionInterval(index, index);
+    }
+
+    void clearSelection() { selection.clearSelection(); }
+
+    int getFirstVisibleIndex() {
+        Rectangle vr = getVisibleRect();
+        if (size == 0 || vr.height <= 0) return -1;
+        return rowAtY(vr.y);
+    }
+
+    int getLastVisibleIndex() {
+        Rectangle vr = getVisibleRect();
+        if (size == 0 || vr.height <= 0) return -1;
+        return rowAtY(vr.y + vr.height - 1);
+    }
+
+    /** Dòng tại điểm {@code p}; -1 nếu nằm ngoài mọi dòng. */
+    int locationToIndex(Point p) {
+        if (size == 0) return -1;
+        int y = p.y - getInsets().top;
+        return y < 0 || y >= prefix(size) ? -1 : indexAt(y);
+    }
+
+    Rectangle getCellBounds(int index) {
+        Insets in = getInsets();
+        return new Rectangle(in.left, in.top + prefix(index), contentWidth(), heights[index]);
+    }
+
+    void ensureIndexIsVisible(int index) {
+        if (index >= 0 && index < size) scrollRectToVisible(getCellBounds(index));
+    }
+
+    // ---------- ListDataListener ----------
+
+    @Override public void intervalAdded(ListDataEvent e) {
+        if (e.getIndex0() == size && model.generation() == cacheGeneration) {
+            // Thêm trang vào cuối: chỉ nối thêm, không dựng lại cả cây
+            int n = model.getSize();
+            ensureCapacity(n);
+            for (int i = size; i < n; i++) append(estimate(model.rowOf(i)));
+            revalidate();
+            repaint();
+        } else {
+            changed();
+        }
+    }
+
+    @Override public void intervalRemoved(ListDataEvent e) { changed(); }
+
+    @Override public void contentsChanged(ListDataEvent e) { changed(); }
+
+    private void changed() {
+        selection.clearSelection();
+        rebuild();
+        revalidate();
+        repaint();
+    }
+
+    // ---------- chiều cao ----------
+
+    private int contentWidth() {
+        Insets in = getInsets();
+        return Math.max(getWidth() - in.left - in.right, 1);
+    }
+
+    /** Bề rộng đổi thì mọi chiều cao đã đo hết đúng; giữ lại làm ước lượng cho tới khi đo lại. */
+    private void invalidateHeights() {
+        for (int i = 0; i < cache.length; i++) if (cache[i] > 0) cache[i] = -cache[i];
+        measuredSum = 0;
+        measuredCount = 0;
+    }
+
+    private void checkWidth() {
+        int w = contentWidth();
+        if (w == cacheWidth) return;
+        cacheWidth = w;
+        invalidateHeights();
+        rebuild();
+        revalidate();
+    }
+
+    private int estimate(int row) {
+        if (row >= 0 && row < cache.length && cache[row] != 0) return Math.abs(cache[row]);
+        return measuredCount == 0 ? DEFAULT_ESTIMATE : (int) (measuredSum / measuredCount);
+    }
+
+    private boolean measured(int row) {
+        return row >= 0 && row < cache.length && cache[row] > 0;
+    }
+
+    /** Đo dòng {@code i} nếu chưa đo; cập nhật cây khi chiều cao khác ước lượng. */
+    private void measure(int i) {
+        int row = model.rowOf(i);
+        if (measured(row)) return;
+
+        Component c = renderer.render(model.getElementAt(i), false);
+        // Snippet xuống dòng theo bề rộng hiện có của JTextArea, nên phải đặt bề rộng rồi layout trước khi hỏi
+        c.setSize(cacheWidth, Short.MAX_VALUE);
+        c.doLayout();
+        int h = Math.max(c.getPreferredSize().height, 1);
+
+        if (row >= 0) {
+            if (row >= cache.length) cache = Arrays.copyOf(cache, Math.max(row + 1, cache.length * 2));
+            cache[row] = h;
+            measuredSum += h;
+            measuredCount++;
+        }
+        if (h != heights[i]) {
+            add(i, h - heights[i]);
+            heights[i] = h;
+        }
+    }
+
+    /** Dựng lại chiều cao của view hiện tại từ cache, O(n) và không đo dòng nào. */
+    private void rebuild() {
+        if (model.generation() != cacheGeneration) {
+            cacheGeneration = model.generation();
+            Arrays.fill(cache, 0);
+            measuredSum = 0;
+            measuredCount = 0;
+        }
+        size = model.getSize();
+        heights = new int[size];
+        tree = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            heights[i] = estimate(model.rowOf(i));
+            tree[i + 1] += heights[i];
+            int parent = (i + 1) + ((i + 1) & -(i + 1));
+            if (parent <= size) tree[parent] += tree[i + 1];
+        }
+    }
+
+    // ---------- cây Fenwick trên heights ----------
+
+    private void ensureCapacity(int n) {
+        if (n <= heights.length) return;
+        int cap = Math.max(n, heights.length * 2);
+        heights = Arrays.copyOf(heights, cap);
+        tree = Arrays.copyOf(tree, cap + 1);
+    }
+
+    private void append(int h) {
+        int k = ++size;
+        heights[k - 1] = h;
+        // tree[k] là tổng các dòng (k - lowbit(k), k]
+        tree[k] = h + prefix(k - 1) - prefix(k - (k & -k));
+    }
+
+    private void add(int i, int delta) {
+        for (int k = i + 1; k <= size; k += k & -k) tree[k] += delta;
+    }
+
+    /** Tổng chiều cao của {@code n} dòng đầu = toạ độ y (trong vùng nội dung) của dòng {@code n}. */
+    private int prefix(int n) {
+        int s = 0;
+        for (int k = n; k > 0; k -= k & -k) s += tree[k];
+        return s;
+    }
+
+    /** Dòng chứa toạ độ {@code y} (trong vùng nội dung), kẹp vào [0, size - 1]. */
+    private int indexAt(int y) {
+        int pos = 0;
+        for (int step = Integer.highestOneBit(Math.max(size, 1)); step > 0; step >>= 1) {
+            int k = pos + step;
+            if (k <= size && tree[k] <= y) {
+                pos = k;
+                y -= tree[k];
+            }
+        }
+        return Math.min(pos, size - 1);
+    }
+
+    private int rowAtY(int y) {
+        return indexAt(Math.max(y - getInsets().top, 0));
+    }
+
+    // ---------- layout / vẽ ----------
+
+    @Override public void doLayout() {
+        checkWidth();
+    }
+
+    @Override public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) return super.getPreferredSize();
+        Insets in = getInsets();
+        return new Dimension(in.left + in.right + 200, in.top + in.bottom + prefix(size));
+    }
+
+    @Override protected void paintComponent(Graphics g) {
+        checkWidth();
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(getSize());
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (size == 0) return;
+
+        Insets in = getInsets();
+        int bottom = clip.y + clip.height - in.top;
+        int total = prefix(size);
+        int i = indexAt(Math.max(clip.y - in.top, 0));
+        int y = prefix(i);
+        int selected = selection.getMinSelectionIndex();
+        for (; i < size && y < bottom; i++) {
+            measure(i);
+            int h = heights[i];
+            Component c = renderer.render(model.getElementAt(i), i == selected);
+            rendererPane.paintComponent(g, c, this, in.left, in.top + y, cacheWidth, h, true);
+            y += h;
+        }
+        rendererPane.removeAll();
+        if (prefix(size) != total) revalidate(); // có dòng vừa đo khác ước lượng: thanh cuộn cần cập nhật
+    }
+
+    // ---------- chuột / bàn phím ----------
+
+    private void installMouse() {
+        addMouseListener(new MouseAdapter() {
+            @Override public void mousePressed(MouseEvent e) {
+                if (!SwingUtilities.isLeftMouseButton(e)) return;
+                requestFocusInWindow();
+                int i = locationToIndex(e.getPoint());
+                if (i >= 0) selection.setSelectionInterval(i, i);
+            }
+        });
+    }
+
+    private void installKeys() {
+        bindKey(KeyEvent.VK_UP, "selectPrevious", () -> moveSelection(-1));
+        bindKey(KeyEvent.VK_DOWN, "selectNext", () -> moveSelection(1));
+        bindKey(KeyEvent.VK_HOME, "selectFirst", () -> moveTo(0));
+        bindKey(KeyEvent.VK_END, "selectLast", () -> moveTo(size - 1));
+    }
+
+    private void bindKey(int key, String name, Runnable action) {
+        getInputMap(WHEN_FOCUSED).put(KeyStroke.getKeyStroke(key, 0), name);
+        getActionMap().put(name, new AbstractAction() {
+            @Override public void actionPerformed(ActionEvent e) { action.run(); }
+        });
+    }
+
+    private void moveSelection(int delta) {
+        int i = selection.getMinSelectionIndex();
+        moveTo(i < 0 ? 0 : i + delta);
+    }
+
+    private void moveTo(int i) {
+        if (size == 0) return;
+        i = Math.max(0, Math.min(i, size - 1));
+        selection.setSelectionInterval(i, i);
+        ensureIndexIsVisible(i);
+    }
+
+    // ---------- Scrollable ----------
+
+    @Override public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension(400, 400);
+    }
+
+    @Override public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) {
+        return UNIT_INCREMENT;
+    }
+
+    @Override public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+        int extent = orientation == SwingConstants.VERTICAL ? visible.height : visible.width;
+        return Math.max(extent - UNIT_INCREMENT, UNIT_INCREMENT);
+    }
+
+    @Override public boolean getScrollableTracksViewportWidth() { return true; }
+
+    @Override public boolean getScrollableTracksViewportHeight() {
+        return getParent() instanceof JViewport vp && vp.getHeight() > getPreferredSize().height;
+    }
+}
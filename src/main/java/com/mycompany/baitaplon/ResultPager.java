@@ -0,0 +1,112 @@
+package com.mycompany.baitaplon;
+
+import javax.swing.SwingUtilities;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Tải tiếp các trang (start = 11, 21, ..., 91) của một truy vấn theo yêu cầu, song song, và giao cho
+ * {@link Listener} trên EDT theo đúng thứ tự xếp hạng. Mọi phương thức gọi trên EDT.
+ */
+final class ResultPager {
+
+    interface Listener {
+        void onPage(List<ResultItem> page);
+        void onError(Exception e);
+        void onEnd();
+    }
+
+    private static final int LAST_START = 1 + (CseClient.MAX_PAGES - 1) * CseClient.PAGE_SIZE;
+
+    private final CseClient client;
+    private final ExecutorService exec;
+    private final String query;
+    private final Listener listener;
+
+    private final Map<Integer, Future<?>> inFlight = new HashMap<>();
+    private final TreeMap<Integer, List<ResultItem>> arrived = new TreeMap<>(); // về sớm hơn trang trước nó
+    private int nextAppend;  // start của trang kế tiếp cần giao cho listener
+    private boolean ended;
+    private boolean cancelled;
+
+    ResultPager(CseClient client, ExecutorService exec, String query, int firstStart, Listener listener) {
+        this.client = client;
+        this.exec = exec;
+        this.query = query;
+        this.listener = listener;
+        this.nextAppend = firstStart;
+        this.ended = firstStart > LAST_START;
+    }
+
+    boolean ended() { return ended; }
+
+    int inFlight() { return inFlight.size(); }
+
+    /** Đảm bảo có {@code pages} trang đang tải hoặc đã về mà chưa giao; không bao giờ huỷ trang đang tải. */
+    void fetchAhead(int pages) {
+        int ahead = inFlight.size() + arrived.size();
+        for (int start = nextAppend; ahead < pages && !ended && !cancelled && start <= LAST_START;
+             start += CseClient.PAGE_SIZE) {
+            if (inFlight.containsKey(start) || arrived.containsKey(start)) continue;
+            int s = start;
+            inFlight.put(s, exec.submit(() -> load(s)));
+            ahead++;
+        }
+    }
+
+    private void load(int start) {
+        try {
+            List<ResultItem> page = client.search(query, CseClient.PAGE_SIZE, start);
+            SwingUtilities.invokeLater(() -> arrived(start, page));
+        } catch (InterruptedException e) {
+            // bị huỷ
+        } catch (Exception e) {
+            SwingUtilities.invokeLater(() -> failed(start, e));
+        }
+    }
+
+    private void arrived(int start, List<ResultItem> page) {
+        if (cancelled) return;
+        inFlight.remove(start);
+        if (start < nextAppend) return;
+        arrived.put(start, page);
+        while (!ended && arrived.containsKey(nextAppend)) {
+            // Cập nhật trạng thái trước khi gọi listener: listener có thể gọi lại fetchAhead
+            int s = nextAppend;
+            List<ResultItem> p = arrived.remove(s);
+            nextAppend += CseClient.PAGE_SIZE;
+            boolean last = p.size() < CseClient.PAGE_SIZE || s >= LAST_START; // trang thiếu = hết kết quả
+            if (last) {
+                ended = true;
+                cancelPending();
+            }
+            if (!p.isEmpty()) listener.onPage(p);
+            if (last) listener.onEnd();
+        }
+    }
+
+    private void failed(int start, Exception e) {
+        if (cancelled) return;
+        inFlight.remove(start); // lần cuộn sau sẽ thử lại trang này
+        if (e instanceof QuotaLimiter.QuotaExceededException) {
+            ended = true;
+            cancelPending();
+        }
+        listener.onError(e);
+    }
+
+    void cancel() {
+        cancelled = true;
+        cancelPending();
+    }
+
+    private void cancelPending() {
+        for (Future<?> f : inFlight.values()) f.cancel(true);
+        inFlight.clear();
+        arrived.clear();
+    }
+}
@@ -0,0 +1,86 @@
+package com.mycompany.baitaplon;
+
+import javax.swing.*;
+import javax.swing.border.Border;
+import javax.swing.border.EmptyBorder;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Highlighter;
+import java.awt.*;
+import java.util.function.BooleanSupplier;
+
+/** Ô hiển thị một kết quả: tiêu đề, domain (kèm giá ở chế độ tìm giá) và snippet xuống dòng. */
+final class ResultRenderer extends JPanel implements ListCellRenderer<ResultItem> {
+    // Dựng sẵn một lần: ô được dựng lại cho từng dòng mỗi lần vẽ, không nên cấp phát Color/Border ở đó
+    private static final Color SELECTED_BG = new Color(230, 242, 255);
+    private static final Border SELECTED_BORDER = BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(120, 180, 255), 1, true), new EmptyBorder(10, 10, 10, 10));
+    private static final Border NORMAL_BORDER = BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(238, 238, 238), 1, true), new EmptyBorder(10, 10, 10, 10));
+
+    private final BooleanSupplier priceMode;
+    private final JLabel lbTitle = new JLabel();
+    private final JLabel lbMeta  = new JLabel();
+    private final JTextArea taSnippet = new JTextArea();
+    private final Highlighter.HighlightPainter pricePainter =
+            new DefaultHighlighter.DefaultHighlightPainter(new Color(255, 236, 153));
+
+    ResultRenderer(BooleanSupplier priceMode) {
+        this.priceMode = priceMode;
+        setLayout(new BorderLayout(8, 6));
+        setBorder(NORMAL_BORDER);
+        setOpaque(true);
+
+        lbTitle.setFont(lbTitle.getFont().deriveFont(Font.BOLD, 14f));
+        lbMeta.setForeground(new Color(110, 110, 110));
+
+        taSnippet.setLineWrap(true);
+        taSnippet.setWrapStyleWord(true);
+        taSnippet.setEditable(false);
+        taSnippet.setOpaque(false);
+        taSnippet.setForeground(new Color(150, 30, 30));
+
+        JPanel top = new JPanel(new BorderLayout(8, 0));
+        top.setOpaque(false);
+        top.add(lbTitle, BorderLayout.CENTER);
+        top.add(lbMeta, BorderLayout.EAST);
+
+        add(top, BorderLayout.NORTH);
+        add(taSnippet, BorderLayout.CENTER);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends ResultItem> list, ResultItem value, int index,
+                                                  boolean isSelected, boolean cellHasFocus) {
+        return render(value, isSelected);
+    }
+
+    /** Đổ dữ liệu của {@code value} vào ô; không phụ thuộc JList nên {@link ResultListView} dùng trực tiếp. */
+    Component render(ResultItem value, boolean isSelected) {
+        lbTitle.setText(value.title.isBlank() ? value.link : value.title);
+        lbMeta.setText(value.displayLink);
+        taSnippet.setText(value.snippet);
+
+        // Chế độ giá: tô các cụm giá trong snippet và hiện giá đầu tiên cạnh domain
+        taSnippet.getHighlighter().removeAllHighlights();
+        if (priceMode.getAsBoolean()) {
+            long[] first = {-1};
+            PriceExtractor.scan(value.snippet, (vnd, start, end) -> {
+                if (first[0] < 0) first[0] = vnd;
+                try {
+                    taSnippet.getHighlighter().addHighlight(start, end, pricePainter);
+                } catch (BadLocationException ignored) {}
+                return true;
+            });
+            if (first[0] < 0) first[0] = PriceExtractor.first(value.title);
+            // Giá đọc được trên trang gốc (LinkPriceFetcher) đáng tin hơn giá trong snippet
+            long verified = value.verifiedPrice;
+            if (verified >= 0) lbMeta.setText("✓ " + PriceExtractor.format(verified) + "  ·  " + value.displayLink);
+            else if (first[0] >= 0) lbMeta.setText(PriceExtractor.format(first[0]) + "  ·  " + value.displayLink);
+        }
+
+        setBackground(isSelected ? SELECTED_BG : Color.WHITE);
+        setBorder(isSelected ? SELECTED_BORDER : NORMAL_BORDER);
+        return this;
+    }
+}
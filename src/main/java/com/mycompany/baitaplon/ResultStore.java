@@ -0,0 +1,219 @@
+package com.mycompany.baitaplon;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Kết quả lưu theo cột thay cho một {@link ResultItem} (bốn String) mỗi dòng: title, phần sau host của link và
+ * snippet nằm liền nhau dạng UTF-8 trong các khối byte lớn, còn domain và "scheme://host" của link được mã hoá
+ * bằng từ điển (mỗi dòng chỉ giữ hai id int). Một dòng tốn ~16 byte cố định cộng số byte UTF-8 của nó, thay vì
+ * 4 object String (chữ có dấu khiến String lưu 2 byte/ký tự).
+ *
+ * <p>{@link #get} dựng {@link ResultItem} khi cần (thường chỉ cho các dòng đang hiện) và giữ vài chục bản gần nhất
+ * để vẽ lại không phải giải mã lại. Không thread-safe: chủ sở hữu tự đồng bộ.</p>
+ */
+final class ResultStore {
+
+    // Khối 256 KB: thêm dòng không bao giờ phải chép lại dữ liệu cũ; dòng lớn hơn một khối có khối riêng
+    private static final int BLOCK = 1 << 18;
+    private static final int VIEW_CACHE = 64;
+
+    private final List<byte[]> blocks = new ArrayList<>();
+    private int blockUsed = BLOCK;          // vị trí ghi trong khối cuối; = BLOCK để khối đầu được cấp khi cần
+
+    // Theo dòng: địa chỉ bản ghi (khối << 32 | vị trí), id domain, id tiền tố link
+    private long[] address = new long[64];
+    private int[] domainId = new int[64];
+    private int[] prefixId = new int[64];
+    private int size;
+
+    private final Dictionary domains = new Dictionary();
+    private final Dictionary prefixes = new Dictionary();
+
+    // Chỉ vài dòng được kiểm tra giá trên trang (LinkPriceFetcher): lưu thưa
+    private final HashMap<Integer, Long> verified = new HashMap<>();
+
+    private final ResultItem[] views = new ResultItem[VIEW_CACHE];
+    private final int[] viewRows = new int[VIEW_CACHE];
+
+    ResultStore() {
+        Arrays.fill(viewRows, -1);
+    }
+
+    int size() { return size; }
+
+    /** Thêm một dòng; trả về chỉ số dòng. */
+    int add(ResultItem it) {
+        if (size == address.length) {
+            int cap = size * 2;
+            address = Arrays.copyOf(address, cap);
+            domainId = Arrays.copyOf(domainId, cap);
+            prefixId = Arrays.copyOf(prefixId, cap);
+        }
+        int cut = prefixEnd(it.link);
+        byte[] title = it.title.getBytes(StandardCharsets.UTF_8);
+        byte[] path = it.link.substring(cut).getBytes(StandardCharsets.UTF_8);
+        byte[] snippet = it.snippet.getBytes(StandardCharsets.UTF_8);
+
+        // Bản ghi: [varint độ dài title][varint độ dài path][varint độ dài snippet][title][path][snippet]
+        int len = varLen(title.length) + varLen(path.length) + varLen(snippet.length)
+                + title.length + path.length + snippet.length;
+        byte[] block = reserve(len);
+        int pos = blockUsed;
+        pos = putVar(block, pos, title.length);
+        pos = putVar(block, pos, path.length);
+        pos = putVar(block, pos, snippet.length);
+        System.arraycopy(title, 0, block, pos, title.length);
+        pos += title.length;
+        System.arraycopy(path, 0, block, pos, path.length);
+        pos += path.length;
+        System.arraycopy(snippet, 0, block, pos, snippet.length);
+
+        int row = size++;
+        address[row] = (long) (blocks.size() - 1) << 32 | blockUsed;
+        blockUsed += len;
+        domainId[row] = domains.id(it.displayLink);
+        prefixId[row] = prefixes.id(it.link.substring(0, cut));
+        if (it.verifiedPrice != ResultItem.NOT_CHECKED) verified.put(row, it.verifiedPrice);
+        return row;
+    }
+
+    /** Dựng (hoặc lấy lại bản vừa dựng) {@link ResultItem} của dòng {@code row}. */
+    ResultItem get(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException(row);
+        int slot = row & (VIEW_CACHE - 1);
+        if (viewRows[slot] == row) return views[slot];
+
+        byte[] block = blocks.get((int) (address[row] >>> 32));
+        int[] pos = {(int) address[row]};
+        int titleLen = getVar(block, pos), pathLen = getVar(block, pos), snippetLen = getVar(block, pos);
+        int p = pos[0];
+        String title = new String(block, p, titleLen, StandardCharsets.UTF_8);
+        String link = prefixes.get(prefixId[row]) + new String(block, p + titleLen, pathLen, StandardCharsets.UTF_8);
+        String snippet = new String(block, p + titleLen + pathLen, snippetLen, StandardCharsets.UTF_8);
+
+        ResultItem it = new ResultItem(title, link, snippet, domains.get(domainId[row]));
+        Long v = verified.get(row);
+        if (v != null) it.verifiedPrice = v;
+        views[slot] = it;
+        viewRows[slot] = row;
+        return it;
+    }
+
+    /** Link của dòng, chỉ giải mã phần link. */
+    String link(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException(row);
+        int slot = row & (VIEW_CACHE - 1);
+        if (viewRows[slot] == row) return views[slot].link;
+        byte[] block = blocks.get((int) (address[row] >>> 32));
+        int[] pos = {(int) address[row]};
+        int titleLen = getVar(block, pos), pathLen = getVar(block, pos);
+        getVar(block, pos);
+        return prefixes.get(prefixId[row]) + new String(block, pos[0] + titleLen, pathLen, StandardCharsets.UTF_8);
+    }
+
+    /** Domain (displayLink) của dòng, không cần dựng cả dòng. */
+    String domain(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException(row);
+        return domains.get(domainId[row]);
+    }
+
+    /** Ghi giá đọc từ trang gốc ({@link ResultItem#verifiedPrice}) cho dòng, kể cả bản đã dựng. */
+    void setVerifiedPrice(int row, long vnd) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException(row);
+        verified.put(row, vnd);
+        int slot = row & (VIEW_CACHE - 1);
+        if (viewRows[slot] == row) views[slot].verifiedPrice = vnd;
+    }
+
+    void clear() {
+        blocks.clear();
+        blockUsed = BLOCK;
+        size = 0;
+        address = new long[64];
+        domainId = new int[64];
+        prefixId = new int[64];
+        domains.clear();
+        prefixes.clear();
+        verified.clear();
+        Arrays.fill(views, null);
+        Arrays.fill(viewRows, -1);
+    }
+
+    /** Ước lượng số byte heap đang dùng (khối dữ liệu + các cột), để đo. */
+    long heapBytes() {
+        long b = 0;
+        for (byte[] blk : blocks) b += 16 + blk.length;
+        return b + 16 + address.length * 8L + 2 * (16 + domainId.length * 4L) + domains.heapBytes() + prefixes.heapBytes();
+    }
+
+    private byte[] reserve(int len) {
+        if (blockUsed + len <= BLOCK && !blocks.isEmpty()) return blocks.get(blocks.size() - 1);
+        byte[] b = new byte[Math.max(BLOCK, len)];
+        blocks.add(b);
+        blockUsed = 0;
+        return b;
+    }
+
+    /** Vị trí hết "scheme://host[:port]" của link (0 nếu không có dạng đó). */
+    private static int prefixEnd(String link) {
+        int s = link.indexOf("://");
+        if (s < 0) return 0;
+        int slash = link.indexOf('/', s + 3);
+        return slash < 0 ? link.length() : slash;
+    }
+
+    private static int varLen(int v) {
+        int n = 1;
+        while ((v >>>= 7) != 0) n++;
+        return n;
+    }
+
+    private static int putVar(byte[] b, int pos, int v) {
+        while ((v & ~0x7F) != 0) {
+            b[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        b[pos++] = (byte) v;
+        return pos;
+    }
+
+    private static int getVar(byte[] b, int[] pos) {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte x = b[pos[0]++];
+            v |= (x & 0x7F) << shift;
+            if (x >= 0) return v;
+        }
+    }
+
+    /** Chuỗi lặp lại nhiều (domain, tiền tố link) → id int; mỗi chuỗi chỉ giữ một bản. */
+    private static final class Dictionary {
+        private final HashMap<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private long chars;
+
+        int id(String s) {
+            Integer id = ids.get(s);
+            if (id != null) return id;
+            int n = values.size();
+            values.add(s);
+            ids.put(s, n);
+            chars += s.length();
+            return n;
+        }
+
+        String get(int id) { return values.get(id); }
+
+        void clear() {
+            ids.clear();
+            values.clear();
+            chars = 0;
+        }
+
+        long heapBytes() { return values.size() * 100L + chars * 2; } // ước lượng: String + entry của HashMap
+    }
+}
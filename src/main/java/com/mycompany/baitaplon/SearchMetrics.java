@@ -0,0 +1,113 @@
+package com.mycompany.baitaplon;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Thời gian từng pha của một lượt tìm, gom vào {@link LatencyHistogram} và phát thành sự kiện JFR
+ * ({@code jcmd <pid> JFR.start} rồi mở bằng JDK Mission Control, nhóm "Google CSE").
+ */
+final class SearchMetrics {
+
+    enum Phase {
+        QUOTA_WAIT("Chờ quota / backoff"),
+        DISK_CACHE("Đọc từ cache đĩa"),
+        TTFB("Kết nối + chờ byte đầu"),
+        DOWNLOAD("Tải body"),
+        PARSE("Giải nén + đọc JSON"),
+        FETCH("Cả request"),
+        UI_PROCESS("Thêm trang vào danh sách"),
+        UI_DONE("Hoàn tất (done)"),
+        SEARCH("Cả lượt tìm"),
+        STARTUP("Khởi động (JVM → cửa sổ hiện)"),
+        PREWARM("Làm nóng kết nối"),
+        FIRST_SEARCH("Lượt tìm đầu tiên");
+
+        final String label;
+
+        Phase(String label) { this.label = label; }
+    }
+
+    /** Một request tới CSE (hoặc một lần trúng cache đĩa). */
+    @Name("com.mycompany.baitaplon.CseFetch")
+    @Label("CSE Fetch")
+    @Category("Google CSE")
+    static final class FetchEvent extends Event {
+        @Label("Query") String query;
+        @Label("Engine") String engine;
+        @Label("Start") int start;
+        @Label("HTTP Status") int status;
+        @Label("Disk Cache Hit") boolean diskHit;
+        @Label("Results") int results;
+        @Label("Attempts") int attempts;
+        @Label("Quota Wait") @Timespan(Timespan.NANOSECONDS) long quotaWait;
+        @Label("Time To First Byte") @Timespan(Timespan.NANOSECONDS) long ttfb;
+        @Label("Download") @Timespan(Timespan.NANOSECONDS) long download;
+        @Label("Parse") @Timespan(Timespan.NANOSECONDS) long parse;
+        @Label("Bytes Received") @DataAmount long bytes;
+    }
+
+    /** Một lần cập nhật giao diện trên EDT (process/done của SwingWorker). */
+    @Name("com.mycompany.baitaplon.UiUpdate")
+    @Label("UI Update")
+    @Category("Google CSE")
+    static final class UiEvent extends Event {
+        @Label("Phase") String phase;
+        @Label("Results") int results;
+    }
+
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    SearchMetrics() {
+        for (Phase p : Phase.values()) histograms.put(p, new LatencyHistogram());
+    }
+
+    void record(Phase phase, long nanos) {
+        histograms.get(phase).recordNanos(nanos);
+    }
+
+    LatencyHistogram histogram(Phase phase) { return histograms.get(phase); }
+
+    void reset() {
+        for (LatencyHistogram h : histograms.values()) h.reset();
+    }
+
+    /** Ghi snapshot JSON: mỗi pha có count/mean/p50/p90/p99/p99.9/max (ms). */
+    void writeSnapshot(OutputStream os) throws IOException {
+        try (JsonGenerator gen = jsonFactory.createGenerator(os, JsonEncoding.UTF8)) {
+            gen.useDefaultPrettyPrinter();
+            gen.writeStartObject();
+            gen.writeStringField("takenAt", Instant.now().toString());
+            gen.writeObjectFieldStart("phases");
+            for (Phase p : Phase.values()) {
+                LatencyHistogram.Snapshot s = histograms.get(p).snapshot();
+                gen.writeObjectFieldStart(p.name());
+                gen.writeStringField("label", p.label);
+                gen.writeNumberField("count", s.count());
+                gen.writeNumberField("meanMs", s.meanMs());
+                gen.writeNumberField("p50Ms", s.p50Ms());
+                gen.writeNumberField("p90Ms", s.p90Ms());
+                gen.writeNumberField("p99Ms", s.p99Ms());
+                gen.writeNumberField("p999Ms", s.p999Ms());
+                gen.writeNumberField("maxMs", s.maxMs());
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.mycompany.baitaplon;
+
+import java.util.List;
+
+/**
+ * Một nguồn trả về từng trang kết quả: một engine CSE ({@link CseEngine}), hoặc một nhóm engine
+ * ({@link HedgedProvider}, {@link MergedProvider}). {@link CseClient} chỉ làm việc qua interface này nên có thể
+ * thay bằng nguồn giả khi chạy thử.
+ */
+interface SearchProvider {
+
+    /** Định danh ổn định của nội dung trả về (endpoint/cx), dùng làm tiền tố key cache đĩa. */
+    String name();
+
+    /** Một trang {@code num} kết quả bắt đầu từ {@code start} (1..91). */
+    List<ResultItem> fetch(String query, int num, int start) throws Exception;
+
+    /** Số request còn được gửi hôm nay; dùng để chia tải giữa các key. */
+    default int quotaLeft() { return Integer.MAX_VALUE; }
+}
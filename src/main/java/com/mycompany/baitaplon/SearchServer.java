@@ -0,0 +1,234 @@
+package com.mycompany.baitaplon;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dịch vụ tìm kiếm HTTP chạy cục bộ (không giao diện), dùng chung một {@link CseClient}
+ * (một connection pool, một cache, một quota) cho mọi client nội bộ.
+ *
+ * <pre>
+ * java -cp ... SearchServer [--port 8765] [--bind 127.0.0.1] [--max-inflight 256] [--quota-day N] [--quota-minute N]
+ * GET /search?q=iphone+15&amp;price=true&amp;pages=2
+ * GET /health
+ * GET /metrics
+ * </pre>
+ *
+ * Mỗi request chạy trên một virtual thread. Số request đang xử lý bị chặn bởi {@code --max-inflight};
+ * vượt quá thì trả 503 ngay thay vì xếp hàng, để p99 không bị kéo dài vô hạn.
+ */
+public final class SearchServer {
+
+    static {
+        // HttpServer ghi header và body thành hai lần write; có Nagle, mỗi response chờ delayed ACK (~40ms).
+        // Phải đặt trước khi lớp cấu hình của HttpServer được nạp.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final CseClient client;
+    private final HttpServer server;
+    private final ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /** Tham số của request sai (trả 400); lỗi phía server như IllegalArgumentException từ CseClient vẫn là 502. */
+    private static final class BadRequestException extends RuntimeException {
+        BadRequestException(String message) { super(message); }
+    }
+
+    SearchServer(CseClient client, InetSocketAddress addr, int maxInFlight) throws IOException {
+        this.client = client;
+        this.maxInFlight = Math.max(maxInFlight, 1);
+        this.inFlight = new Semaphore(this.maxInFlight);
+        this.server = HttpServer.create(addr, 1024);
+        server.createContext("/search", this::handleSearch);
+        server.createContext("/health", this::handleHealth);
+        server.createContext("/metrics", this::handleMetrics);
+        server.setExecutor(exec);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = 8765, maxInFlight = 256, quotaDay = 0, quotaMinute = 0;
+        String bind = "127.0.0.1";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--bind" -> bind = args[i + 1];
+                case "--max-inflight" -> maxInFlight = Integer.parseInt(args[i + 1]);
+                case "--quota-day" -> quotaDay = Integer.parseInt(args[i + 1]);
+                case "--quota-minute" -> quotaMinute = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Tham số không hợp lệ: " + args[i]);
+            }
+        }
+
+        CseClient client = new CseClient();
+        if (!client.isConfigured()) {
+            System.err.println("Thiếu cấu hình: đặt GOOGLE_CSE_KEY/GOOGLE_CSE_CX (biến môi trường hoặc -D) hoặc lưu trong app.");
+            System.exit(2);
+        }
+        client.applyQuotaOptions(quotaDay, quotaMinute);
+
+        SearchServer s = new SearchServer(client, new InetSocketAddress(bind, port), maxInFlight);
+        Runtime.getRuntime().addShutdownHook(new Thread(s::stop));
+        s.start();
+        System.err.println("Đang phục vụ tại http://" + bind + ":" + s.port() + "/search?q=...");
+    }
+
+    void start() { server.start(); }
+
+    int port() { return server.getAddress().getPort(); }
+
+    void stop() {
+        server.stop(1);
+        exec.shutdown();
+        try {
+            exec.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handleSearch(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (!"GET".equals(ex.getRequestMethod())) {
+                sendError(ex, 405, "Chỉ hỗ trợ GET");
+                return;
+            }
+            if (!inFlight.tryAcquire()) {
+                ex.getResponseHeaders().set("Retry-After", "1");
+                sendError(ex, 503, "Máy chủ đang quá tải");
+                return;
+            }
+            try {
+                Map<String, String> params = queryParams(ex.getRequestURI().getRawQuery());
+                String q = params.getOrDefault("q", "").trim();
+                if (q.isEmpty()) throw new BadRequestException("Thiếu tham số q");
+                boolean price = Boolean.parseBoolean(params.getOrDefault("price", "false"));
+                int pages = parseInt(params.get("pages"), 1);
+                String query = CseClient.buildQuery(List.of(q), price);
+
+                sendResults(ex, query, client.searchAll(query, pages, pages));
+            } catch (QuotaLimiter.QuotaExceededException e) {
+                sendError(ex, 429, e.getMessage());
+            } catch (BadRequestException e) {
+                sendError(ex, 400, e.getMessage());
+            } catch (Exception e) {
+                sendError(ex, 502, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+
+    private void handleHealth(HttpExchange ex) throws IOException {
+        try (ex) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(128);
+            try (JsonGenerator g = jsonFactory.createGenerator(bos, JsonEncoding.UTF8)) {
+                g.writeStartObject();
+                g.writeNumberField("cacheHits", client.cacheHits());
+                g.writeNumberField("cacheMisses", client.cacheMisses());
+                g.writeNumberField("quotaUsed", client.quotaUsed());
+                g.writeNumberField("quotaLimit", client.quotaLimit());
+                g.writeNumberField("engines", client.engineCount());
+                g.writeNumberField("hedges", client.hedges());
+                g.writeNumberField("hedgeWins", client.hedgeWins());
+                g.writeNumberField("failovers", client.failovers());
+                g.writeNumberField("inFlight", maxInFlight - inFlight.availablePermits());
+                g.writeEndObject();
+            }
+            send(ex, 200, bos.toByteArray());
+        }
+    }
+
+    /** Snapshot thời gian theo pha của các request tới CSE (cùng định dạng với nút xuất trong app). */
+    private void handleMetrics(HttpExchange ex) throws IOException {
+        try (ex) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(2048);
+            client.metrics().writeSnapshot(bos);
+            send(ex, 200, bos.toByteArray());
+        }
+    }
+
+    private void sendResults(HttpExchange ex, String query, List<ResultItem> items) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(512 + items.size() * 384);
+        try (JsonGenerator g = jsonFactory.createGenerator(bos, JsonEncoding.UTF8)) {
+            g.writeStartObject();
+            g.writeStringField("query", query);
+            g.writeNumberField("count", items.size());
+            g.writeArrayFieldStart("items");
+            for (ResultItem it : items) {
+                g.writeStartObject();
+                g.writeStringField("title", it.title);
+                g.writeStringField("link", it.link);
+                g.writeStringField("snippet", it.snippet);
+                g.writeStringField("displayLink", it.displayLink);
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+        send(ex, 200, bos.toByteArray());
+    }
+
+    private void sendError(HttpExchange ex, int status, String message) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(128);
+        try (JsonGenerator g = jsonFactory.createGenerator(bos, JsonEncoding.UTF8)) {
+            g.writeStartObject();
+            g.writeObjectFieldStart("error");
+            g.writeNumberField("code", status);
+            g.writeStringField("message", message);
+            g.writeEndObject();
+            g.writeEndObject();
+        }
+        send(ex, status, bos.toByteArray());
+    }
+
+    private static void send(HttpExchange ex, int status, byte[] body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static Map<String, String> queryParams(String raw) {
+        Map<String, String> m = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return m;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String k = eq < 0 ? pair : pair.substring(0, eq);
+            String v = eq < 0 ? "" : pair.substring(eq + 1);
+            m.putIfAbsent(URLDecoder.decode(k, StandardCharsets.UTF_8), URLDecoder.decode(v, StandardCharsets.UTF_8));
+        }
+        return m;
+    }
+
+    private static int parseInt(String s, int def) {
+        if (s == null || s.isBlank()) return def;
+        try {
+            return Math.min(Math.max(Integer.parseInt(s.trim()), 1), CseClient.MAX_PAGES);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("pages không hợp lệ: " + s);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.mycompany.baitaplon;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Đưa URL về dạng chuẩn để nhận ra cùng một trang: bỏ fragment, "www.", port mặc định, dấu "/" cuối,
+ * các tham số theo dõi (utm_*, gclid, fbclid, zarsrc...) và sắp xếp các tham số còn lại.
+ */
+final class UrlCanonicalizer {
+
+    private UrlCanonicalizer() {}
+
+    static String canonical(String url) {
+        if (url == null || url.isBlank()) return "";
+        URI u;
+        try {
+            u = URI.create(url.trim());
+        } catch (IllegalArgumentException e) {
+            return url.trim();
+        }
+        String host = u.getHost();
+        if (host == null) return url.trim();
+
+        host = host.toLowerCase(Locale.ROOT);
+        if (host.startsWith("www.")) host = host.substring(4);
+
+        StringBuilder sb = new StringBuilder(url.length());
+        // http/https coi như nhau
+        sb.append(host);
+        int port = u.getPort();
+        if (port > 0 && port != 80 && port != 443) sb.append(':').append(port);
+
+        String path = u.getRawPath();
+        if (path == null || path.isEmpty()) path = "/";
+        if (path.length() > 1 && path.endsWith("/")) path = path.substring(0, path.length() - 1);
+        sb.append(path);
+
+        String q = u.getRawQuery();
+        if (q != null && !q.isEmpty()) {
+            List<String> kept = new ArrayList<>();
+            for (String p : q.split("&")) {
+                if (p.isEmpty()) continue;
+                int eq = p.indexOf('=');
+                String name = (eq < 0 ? p : p.substring(0, eq)).toLowerCase(Locale.ROOT);
+                if (!isTracking(name)) kept.add(p);
+            }
+            if (!kept.isEmpty()) {
+                kept.sort(null);
+                sb.append('?').append(String.join("&", kept));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isTracking(String name) {
+        if (name.startsWith("utm_")) return true;
+        return switch (name) {
+            case "gclid", "gbraid", "wbraid", "fbclid", "msclkid", "yclid", "igshid", "zarsrc", "mc_cid", "mc_eid",
+                 "_ga", "_gl", "ref", "ref_src", "spm", "srsltid", "cmpid", "itm_source", "itm_medium",
+                 "itm_campaign" -> true;
+            default -> false;
+        };
+    }
+}
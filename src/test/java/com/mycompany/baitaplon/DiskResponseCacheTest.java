@@ -0,0 +1,119 @@
+package com.mycompany.baitaplon;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiskResponseCacheTest {
+
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    private static byte[] bytes(String s) { return s.getBytes(StandardCharsets.UTF_8); }
+
+    @Test
+    void reopenKeepsEntries(@TempDir Path dir) throws IOException {
+        try (DiskResponseCache c = new DiskResponseCache(dir, 1 << 20, 64)) {
+            c.put("iphone 15", bytes("trang 1"), HOUR);
+            c.put("điện thoại", bytes("trang có dấu"), HOUR);
+            c.put("iphone 15", bytes("trang 1 mới"), HOUR);
+        }
+        try (DiskResponseCache c = new DiskResponseCache(dir, 1 << 20, 64)) {
+            assertArrayEquals(bytes("trang 1 mới"), c.get("iphone 15"));
+            assertArrayEquals(bytes("trang có dấu"), c.get("điện thoại"));
+            assertNull(c.get("không có"));
+        }
+    }
+
+    @Test
+    void expiredEntryIsNotReturned(@TempDir Path dir) throws Exception {
+        try (DiskResponseCache c = new DiskResponseCache(dir, 1 << 20, 64)) {
+            c.put("k", bytes("v"), Duration.ofMillis(1));
+            Thread.sleep(5);
+            assertNull(c.get("k"));
+        }
+    }
+
+    @Test
+    void truncatedTailIsDroppedOnReopen(@TempDir Path dir) throws IOException {
+        try (DiskResponseCache c = new DiskResponseCache(dir, 1 << 20, 64)) {
+            c.put("a", bytes("1"), HOUR);
+            c.put("b", bytes("2"), HOUR);
+        }
+        Path seg = dir.resolve("responses.seg");
+        long good = Files.size(seg);
+        // Bản ghi ghi dở: độ dài khai báo lớn hơn phần đã ghi
+        try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.APPEND)) {
+            ch.write(ByteBuffer.allocate(12).putInt(0, 500));
+        }
+        try (DiskResponseCache c = new DiskResponseCache(dir, 1 << 20, 64)) {
+            assertEquals(good, Files.size(seg));
+            assertArrayEquals(bytes("1"), c.get("a"));
+            assertArrayEquals(bytes("2"), c.get("b"));
+            c.put("c", bytes("3"), HOUR);
+        }
+        try (DiskResponseCache c = new DiskResponseCache(dir, 1 << 20, 64)) {
+            assertArrayEquals(bytes("3"), c.get("c"));
+        }
+    }
+
+    @Test
+    void rebuiltIndexDoesNotResurrectOlderRecord(@TempDir Path dir) throws Exception {
+        try (DiskResponseCache c = new DiskResponseCache(dir, 1 << 20, 64)) {
+            c.put("k", bytes("cũ"), HOUR);
+            c.put("k", bytes("mới"), Duration.ofMillis(1));
+            c.put("x", bytes("x"), HOUR);
+        }
+        Thread.sleep(5);
+        // Index hỏng (như tắt ngang): buộc dựng lại từ segment
+        try (FileChannel ch = FileChannel.open(dir.resolve("responses.idx"), StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(4), 0);
+        }
+        try (DiskResponseCache c = new DiskResponseCache(dir, 1 << 20, 64)) {
+            assertNull(c.get("k"));
+            assertArrayEquals(bytes("x"), c.get("x"));
+        }
+    }
+
+    @Test
+    void compactionKeepsNewestWithinLimit(@TempDir Path dir) throws IOException {
+        long maxBytes = 16 << 10;
+        byte[] value = new byte[200];
+        try (DiskResponseCache c = new DiskResponseCache(dir, maxBytes, 256)) {
+            for (int i = 0; i < 500; i++) c.put("q" + i, value, HOUR);
+            assertTrue(Files.size(dir.resolve("responses.seg")) <= maxBytes);
+            assertNotNull(c.get("q499"));
+            assertNull(c.get("q0"));
+        }
+        try (DiskResponseCache c = new DiskResponseCache(dir, maxBytes, 256)) {
+            assertArrayEquals(value, c.get("q499"));
+        }
+    }
+
+    @Test
+    void secondOpenIsRefusedUntilClosed(@TempDir Path dir) throws IOException {
+        DiskResponseCache first = new DiskResponseCache(dir, 1 << 20, 64);
+        first.put("k", bytes("v"), HOUR);
+        assertThrows(IOException.class, () -> new DiskResponseCache(dir, 1 << 20, 64));
+        // Lần mở bị từ chối không được nhả khoá của lần mở đầu
+        assertArrayEquals(bytes("v"), first.get("k"));
+        first.close();
+        try (DiskResponseCache again = new DiskResponseCache(dir, 1 << 20, 64)) {
+            assertEquals(1, again.get("k").length);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.mycompany.baitaplon;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PriceExtractorTest {
+
+    @Test
+    void resolutionIsNotAPrice() {
+        assertEquals(-1, PriceExtractor.first("Smart Tivi Samsung 4K"));
+        assertEquals(5_490_000, PriceExtractor.first("Camera 8K quay đẹp, giá 5.490.000 đ"));
+    }
+
+    @Test
+    void thousandsUnit() {
+        assertEquals(50_000, PriceExtractor.first("chỉ 50k"));
+        assertEquals(1_500, PriceExtractor.first("1.5k"));
+        assertEquals(299_000, PriceExtractor.first("299 nghìn"));
+    }
+
+    @Test
+    void bareDOnlyWhenGluedToDigits() {
+        assertEquals(100_000, PriceExtractor.first("giá 100.000d"));
+        assertEquals(-1, PriceExtractor.first("giao trong 30 d"));
+    }
+
+    @Test
+    void pageTitleResolutionDoesNotHidePrice() throws Exception {
+        String html = "<html><head><title>Smart Tivi Samsung 4K</title></head>"
+                + "<body><p>Giá: 12.990.000đ</p></body></html>";
+        assertEquals(12_990_000, LinkPriceFetcher.findPrice(new StringReader(html)));
+    }
+}
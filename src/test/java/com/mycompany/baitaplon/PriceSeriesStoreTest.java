@@ -0,0 +1,129 @@
+package com.mycompany.baitaplon;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PriceSeriesStoreTest {
+
+    private static final String Q = "iphone 15 pro max";
+    private static final String LINK = "shop.vn/p/iphone-15";
+
+    private static List<PriceSeriesStore.Observation> obs(long vnd) {
+        return List.of(new PriceSeriesStore.Observation(LINK, "shop.vn", vnd));
+    }
+
+    private static List<PriceSeriesStore.Point> points(PriceSeriesStore store) throws IOException {
+        List<PriceSeriesStore.Point> out = new ArrayList<>();
+        store.forEach(out::add);
+        return out;
+    }
+
+    private static PriceSeriesStore.Point point(long epochSecond, long vnd) {
+        return new PriceSeriesStore.Point(Q, LINK, "shop.vn", epochSecond, vnd);
+    }
+
+    @Test
+    void pointsSurviveReopen(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("prices.ts");
+        try (PriceSeriesStore s = new PriceSeriesStore(file)) {
+            assertEquals(1, s.append(Q, obs(29_990_000), 1_700_000_000L));
+            // Cùng giá thì không ghi lại; link mới không có giá thì bỏ qua
+            assertEquals(0, s.append(Q, List.of(new PriceSeriesStore.Observation(LINK, "shop.vn", 29_990_000),
+                    new PriceSeriesStore.Observation("khac.vn/p", "khac.vn", -1)), 1_700_003_600L));
+            assertEquals(1, s.append(Q, obs(-1), 1_700_007_200L));
+        }
+        try (PriceSeriesStore s = new PriceSeriesStore(file)) {
+            assertEquals(1, s.seriesCount());
+            assertEquals(2, s.pointCount());
+            assertEquals(0, s.lastPrice(Q, LINK));
+            assertEquals(-1, s.lastPrice(Q, "khac.vn/p"));
+            assertEquals(List.of(point(1_700_000_000L, 29_990_000), point(1_700_007_200L, 0)), points(s));
+        }
+    }
+
+    @Test
+    void largeValuesAndLongStringsRoundTrip(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("prices.ts");
+        String query = "điện thoại ".repeat(20_000);
+        String link = "shop.vn/" + "đ".repeat(100_000);
+        try (PriceSeriesStore s = new PriceSeriesStore(file)) {
+            s.append(query, List.of(new PriceSeriesStore.Observation(link, "shop.vn", Long.MAX_VALUE)), 1L << 40);
+        }
+        try (PriceSeriesStore s = new PriceSeriesStore(file)) {
+            assertEquals(Long.MAX_VALUE, s.lastPrice(query, link));
+            assertEquals(List.of(new PriceSeriesStore.Point(query, link, "shop.vn", 1L << 40, Long.MAX_VALUE)),
+                    points(s));
+        }
+    }
+
+    @Test
+    void truncatedTailKeepsLaterTimestampsRight(@TempDir Path dir) throws IOException {
+        // Cắt điểm cuối ở mọi độ dài: Δ của điểm dở không được cộng vào mốc thời gian của các điểm ghi sau
+        for (int cut = 1; cut <= 6; cut++) {
+            Path file = dir.resolve("cut" + cut + ".ts");
+            long full;
+            try (PriceSeriesStore s = new PriceSeriesStore(file)) {
+                s.append(Q, obs(100), 1000);
+                s.append(Q, obs(200), 2000);
+                full = s.sizeBytes();
+            }
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.truncate(full - cut);
+            }
+            try (PriceSeriesStore s = new PriceSeriesStore(file)) {
+                assertEquals(100, s.lastPrice(Q, LINK), "cut " + cut);
+                s.append(Q, obs(300), 3000);
+            }
+            try (PriceSeriesStore s = new PriceSeriesStore(file)) {
+                assertEquals(List.of(point(1000, 100), point(3000, 300)), points(s), "cut " + cut);
+            }
+        }
+    }
+
+    @Test
+    void badRecordIsCutOff(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("prices.ts");
+        long good;
+        try (PriceSeriesStore s = new PriceSeriesStore(file)) {
+            s.append(Q, obs(100), 1000);
+            good = s.sizeBytes();
+        }
+        // Điểm trỏ tới chuỗi chưa khai báo, theo sau là một điểm trông hợp lệ
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            ch.write(ByteBuffer.wrap(new byte[] {'P', 9, 1, 1, 'P', 0, 1, 2}));
+        }
+        try (PriceSeriesStore s = new PriceSeriesStore(file)) {
+            assertEquals(good, Files.size(file));
+            assertEquals(1, s.pointCount());
+            s.append(Q, obs(200), 2000);
+        }
+        try (PriceSeriesStore s = new PriceSeriesStore(file)) {
+            assertEquals(List.of(point(1000, 100), point(2000, 200)), points(s));
+        }
+    }
+
+    @Test
+    void secondOpenIsRefusedUntilClosed(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("prices.ts");
+        PriceSeriesStore first = new PriceSeriesStore(file);
+        assertThrows(IOException.class, () -> new PriceSeriesStore(file));
+        // Lần mở bị từ chối không được nhả khoá của lần mở đầu
+        first.append(Q, obs(100), 1000);
+        first.close();
+        try (PriceSeriesStore again = new PriceSeriesStore(file)) {
+            assertEquals(100, again.lastPrice(Q, LINK));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.mycompany.baitaplon;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultDeduperTest {
+
+    private static final String BASE =
+            "iPhone 15 Pro Max 256GB chính hãng VN/A giá tốt trả góp 0% giao nhanh toàn quốc";
+
+    private static ResultItem item(String link, String snippet) {
+        return new ResultItem("iPhone 15 Pro Max", link, snippet, "");
+    }
+
+    private static int distance(String a, String b) {
+        return Long.bitCount(ResultDeduper.simHash(ResultIndex.tokenize(a))
+                ^ ResultDeduper.simHash(ResultIndex.tokenize(b)));
+    }
+
+    @Test
+    void sameCanonicalLinkIsDropped() {
+        ResultDeduper d = new ResultDeduper();
+        assertTrue(d.accept(item("https://shop.vn/p/1?utm_source=google", "a")));
+        assertFalse(d.accept(item("http://www.shop.vn/p/1/#gia", "b")));
+        assertTrue(d.accept(item("https://shop.vn/p/2", "a")));
+        assertEquals(1, d.dropped());
+    }
+
+    @Test
+    void nearDuplicateAtMaxDistanceIsDropped() {
+        String near = "iPhone 15 Pro Max mới chính hãng VN/A giá tốt trả góp 0% giao nhanh toàn quốc";
+        assertEquals(ResultDeduper.MAX_DISTANCE, distance(BASE, near));
+
+        ResultDeduper d = new ResultDeduper();
+        assertTrue(d.accept(item("https://a.vn/1", BASE)));
+        assertFalse(d.accept(item("https://b.vn/1", near)));
+    }
+
+    @Test
+    void oneBitFurtherIsKept() {
+        String far = "iPhone 15 Pro Max xanh chính hãng VN/A giá tốt trả góp 0% giao nhanh toàn quốc";
+        assertEquals(ResultDeduper.MAX_DISTANCE + 1, distance(BASE, far));
+
+        ResultDeduper d = new ResultDeduper();
+        assertTrue(d.accept(item("https://a.vn/1", BASE)));
+        assertTrue(d.accept(item("https://b.vn/1", far)));
+    }
+
+    @Test
+    void bandsAgreeWithFullComparison() {
+        // Mọi biến thể đổi 1-2 từ: kết quả qua band phải đúng như so Hamming trực tiếp
+        String[] words = BASE.split(" ");
+        String[] repl = {"xanh", "đen", "bạc", "mới", "rẻ", "hot", "sale", "titan"};
+        int near = 0;
+        for (int i = 0; i < words.length; i++) {
+            for (int j = i; j < words.length; j++) {
+                for (String r : repl) {
+                    String[] w = words.clone();
+                    w[i] = r;
+                    w[j] = repl[(j * 3 + r.length()) % repl.length];
+                    String variant = String.join(" ", w);
+                    boolean expectDup = distance(BASE, variant) <= ResultDeduper.MAX_DISTANCE;
+                    if (expectDup) near++;
+
+                    ResultDeduper d = new ResultDeduper();
+                    d.accept(item("https://a.vn/1", BASE));
+                    assertEquals(!expectDup, d.accept(item("https://b.vn/1", variant)), variant);
+                }
+            }
+        }
+        assertTrue(near > 0);
+    }
+
+    @Test
+    void shortSnippetsAreNotCompared() {
+        ResultDeduper d = new ResultDeduper();
+        List<ResultItem> page = List.of(item("https://a.vn/1", "Giá tốt"), item("https://b.vn/1", "Giá tốt"));
+        assertEquals(page, d.filter(page));
+    }
+}
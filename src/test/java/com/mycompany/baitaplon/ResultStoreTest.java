@@ -0,0 +1,106 @@
+package com.mycompany.baitaplon;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ResultStoreTest {
+
+    private static void assertRow(ResultItem expected, ResultItem actual) {
+        assertEquals(expected.title, actual.title);
+        assertEquals(expected.link, actual.link);
+        assertEquals(expected.snippet, actual.snippet);
+        assertEquals(expected.displayLink, actual.displayLink);
+        assertEquals(expected.verifiedPrice, actual.verifiedPrice);
+    }
+
+    @Test
+    void rowsDecodeToWhatWasAdded() {
+        ResultStore store = new ResultStore();
+        ResultItem[] items = {
+                new ResultItem("Điện thoại iPhone 15 Pro Max", "https://www.thegioididong.com/dtdd/iphone-15?x=1",
+                        "Giá chỉ 29.990.000₫, trả góp 0%", "www.thegioididong.com"),
+                new ResultItem("Tai nghe", "https://shop.vn:8443", "", "shop.vn"),
+                new ResultItem("Không có scheme", "shop.vn/p/tai-nghe", "Mô tả", "shop.vn"),
+                new ResultItem(null, null, null, null),
+        };
+        for (int i = 0; i < items.length; i++) assertEquals(i, store.add(items[i]));
+        assertEquals(items.length, store.size());
+        for (int i = 0; i < items.length; i++) {
+            assertEquals(items[i].link, store.link(i));
+            assertEquals(items[i].displayLink, store.domain(i));
+            assertRow(items[i], store.get(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> store.get(items.length));
+    }
+
+    @Test
+    void rowLargerThanABlockGetsItsOwnBlock() {
+        ResultStore store = new ResultStore();
+        ResultItem small = new ResultItem("a", "https://a.vn/1", "ngắn", "a.vn");
+        ResultItem big = new ResultItem("lớn", "https://b.vn/2", "ả".repeat(200_000), "b.vn"); // ~600 KB UTF-8
+        store.add(small);
+        store.add(big);
+        store.add(small);
+        assertRow(big, store.get(1));
+        assertRow(small, store.get(0));
+        assertRow(small, store.get(2));
+    }
+
+    @Test
+    void repeatedDomainsShareOneString() {
+        ResultStore store = new ResultStore();
+        for (int i = 0; i < 10; i++) {
+            store.add(new ResultItem("t" + i, "https://shop.vn/p/" + i, "s", new String("shop.vn")));
+        }
+        assertSame(store.domain(0), store.domain(9));
+        assertSame(store.get(0).displayLink, store.get(9).displayLink);
+        assertEquals("https://shop.vn/p/9", store.link(9));
+    }
+
+    @Test
+    void rowsBeyondTheViewCacheStillDecode() {
+        ResultStore store = new ResultStore();
+        for (int i = 0; i < 1000; i++) {
+            store.add(new ResultItem("Sản phẩm " + i, "https://d" + (i % 7) + ".vn/p/" + i, "mô tả " + i, "d" + (i % 7) + ".vn"));
+        }
+        for (int i = 0; i < 1000; i += 37) {
+            ResultItem it = store.get(i);
+            assertEquals("Sản phẩm " + i, it.title);
+            assertEquals("https://d" + (i % 7) + ".vn/p/" + i, it.link);
+            assertSame(it, store.get(i));
+        }
+        // Dòng cùng ô cache (cách nhau 64) phải dựng lại, không trả nhầm bản của dòng kia
+        ResultItem a = store.get(5);
+        ResultItem b = store.get(5 + 64);
+        assertNotSame(a, b);
+        assertEquals("Sản phẩm 69", b.title);
+        assertEquals("mô tả 5", store.get(5).snippet);
+    }
+
+    @Test
+    void verifiedPriceIsKeptPerRow() {
+        ResultStore store = new ResultStore();
+        ResultItem checked = new ResultItem("a", "https://a.vn/1", "", "a.vn");
+        checked.verifiedPrice = 1_990_000;
+        store.add(checked);
+        store.add(new ResultItem("b", "https://b.vn/1", "", "b.vn"));
+
+        ResultItem shown = store.get(1);
+        store.setVerifiedPrice(1, ResultItem.NO_PRICE);
+        assertEquals(ResultItem.NO_PRICE, shown.verifiedPrice);
+        for (int i = 2; i < 200; i++) store.add(new ResultItem("x", "https://x.vn/" + i, "", "x.vn"));
+        for (int i = 2; i < 200; i++) store.get(i); // đẩy hai dòng đầu ra khỏi cache
+        assertEquals(1_990_000, store.get(0).verifiedPrice);
+        assertEquals(ResultItem.NO_PRICE, store.get(1).verifiedPrice);
+        assertEquals(ResultItem.NOT_CHECKED, store.get(2).verifiedPrice);
+
+        store.clear();
+        assertEquals(0, store.size());
+        store.add(new ResultItem("c", "https://c.vn/1", "", "c.vn"));
+        assertEquals(ResultItem.NOT_CHECKED, store.get(0).verifiedPrice);
+    }
+}
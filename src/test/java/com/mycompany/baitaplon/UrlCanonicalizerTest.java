@@ -0,0 +1,33 @@
+package com.mycompany.baitaplon;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UrlCanonicalizerTest {
+
+    @Test
+    void trackingParamsAreDropped() {
+        assertEquals("shop.vn/p/iphone-15",
+                UrlCanonicalizer.canonical("https://shop.vn/p/iphone-15?utm_source=google&utm_medium=cpc&gclid=abc"));
+        assertEquals("shop.vn/p?id=7",
+                UrlCanonicalizer.canonical("https://shop.vn/p?fbclid=x&id=7&zarsrc=30&srsltid=y&ref=home"));
+        // Tên tham số theo dõi không phân biệt hoa thường
+        assertEquals("shop.vn/p?id=7", UrlCanonicalizer.canonical("https://shop.vn/p?id=7&UTM_Campaign=tet"));
+    }
+
+    @Test
+    void sameProductPageIsRecognised() {
+        String expected = "shop.vn/p?color=den&id=7";
+        assertEquals(expected, UrlCanonicalizer.canonical("https://www.shop.vn/p/?id=7&color=den#mo-ta"));
+        assertEquals(expected, UrlCanonicalizer.canonical("http://WWW.Shop.vn:80/p?color=den&id=7"));
+        assertEquals(expected, UrlCanonicalizer.canonical("https://shop.vn:443/p?color=den&utm_source=x&id=7"));
+    }
+
+    @Test
+    void otherPortsAndBadInputAreKept() {
+        assertEquals("shop.vn:8080/", UrlCanonicalizer.canonical("http://shop.vn:8080"));
+        assertEquals("", UrlCanonicalizer.canonical("  "));
+        assertEquals("không phải url", UrlCanonicalizer.canonical(" không phải url "));
+    }
+}